@@ -3,6 +3,7 @@ package SweetShop.SweetShopSystem.config;
 import SweetShop.SweetShopSystem.security.CustomUserDetailsService;
 import SweetShop.SweetShopSystem.security.JwtAuthenticationFilter;
 
+import jakarta.servlet.DispatcherType;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -41,6 +42,8 @@ public class SecurityConfig {
                 .cors(cors -> cors.configurationSource(corsConfigurationSource()))
                 .csrf(AbstractHttpConfigurer::disable)
                 .authorizeHttpRequests(auth -> auth
+                        // async results are dispatched back after the original request was authorized
+                        .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
                         // public paths
                         .requestMatchers("/api/auth/**").permitAll()
                         .requestMatchers("/api/health","/api/health/**").permitAll()
@@ -48,10 +51,18 @@ public class SecurityConfig {
                         // allow public access to sweets viewing
                         .requestMatchers(HttpMethod.GET, "/api/sweets").permitAll()
                         .requestMatchers(HttpMethod.GET, "/api/sweets/search").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/sweets/page", "/api/sweets/stream").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/sweets/suggest").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/sweets/events").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/sweets/batch").permitAll()
+                        // provider webhooks authenticate with their own signature
+                        .requestMatchers(HttpMethod.POST, "/api/payment/webhook").permitAll()
 
                         // ADMIN ONLY PATHS
                         .requestMatchers(HttpMethod.POST, "/api/sweets/*/restock").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.POST, "/api/sweets").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.POST, "/api/sweets/import", "/api/sweets/bulk-update").hasRole("ADMIN")
+                        .requestMatchers(HttpMethod.GET, "/api/sweets/export").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.PUT, "/api/sweets/**").hasRole("ADMIN")
                         .requestMatchers(HttpMethod.DELETE, "/api/sweets/**").hasRole("ADMIN")
                         .requestMatchers("/api/admin/**").hasRole("ADMIN")
@@ -84,7 +95,7 @@ public class SecurityConfig {
 
         config.setAllowCredentials(false);
 
-        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With"));
+        config.setExposedHeaders(Arrays.asList("Authorization", "Content-Type", "X-Requested-With", "Idempotent-Replayed"));
 
         config.setMaxAge(3600L);
 
@@ -1,20 +1,35 @@
 package SweetShop.SweetShopSystem.controller;
 
 import SweetShop.SweetShopSystem.dto.AuthResponseDTO;
+import SweetShop.SweetShopSystem.dto.LowStockAlertDTO;
 import SweetShop.SweetShopSystem.dto.RegisterDTO;
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
 import SweetShop.SweetShopSystem.service.AuthService;
+import SweetShop.SweetShopSystem.service.InventoryJournal;
+import SweetShop.SweetShopSystem.service.LowStockMonitor;
+import SweetShop.SweetShopSystem.service.SweetCatalog;
+import SweetShop.SweetShopSystem.service.SweetSearchCache;
+import SweetShop.SweetShopSystem.service.SweetStockShards;
 
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/api/admin")
 @RequiredArgsConstructor
 public class AdminController {
 
     private final AuthService authService;
+    private final SweetCatalog sweetCatalog;
+    private final SweetSearchCache sweetSearchCache;
+    private final InventoryJournal inventoryJournal;
+    private final SweetStockShards sweetStockShards;
+    private final LowStockMonitor lowStockMonitor;
 
     // ADMIN Creates Another Admin
     @PostMapping("/create-admin")
@@ -22,4 +37,94 @@ public class AdminController {
     public ResponseEntity<AuthResponseDTO> createAdmin(@RequestBody RegisterDTO request) {
         return ResponseEntity.ok(authService.createAdmin(request));
     }
+
+    // Catalog snapshot metrics (hits, misses, rebuild time)
+    @GetMapping("/catalog/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> catalogStats() {
+        return ResponseEntity.ok(sweetCatalog.stats());
+    }
+
+    // Search result cache metrics (hit ratio, load time)
+    @GetMapping("/search-cache/stats")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> searchCacheStats() {
+        return ResponseEntity.ok(sweetSearchCache.stats());
+    }
+
+    // Inventory history feed (?after=<last event id>&size=<n>)
+    @GetMapping("/inventory/events")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<InventoryEvent>> inventoryEvents(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(inventoryJournal.events(after, size));
+    }
+
+    // Stock per sweet rebuilt from the latest snapshot plus the event tail
+    @GetMapping("/inventory/stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, Integer>> rebuiltStock() {
+        return ResponseEntity.ok(inventoryJournal.rebuild());
+    }
+
+    // Compact the journal into a new snapshot now
+    @PostMapping("/inventory/snapshot")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> snapshotInventory() {
+        inventoryJournal.snapshot();
+        return ResponseEntity.ok("Snapshot taken");
+    }
+
+    // Hot SKUs and their shard counts
+    @GetMapping("/hot-skus")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, Integer>> hotSkus() {
+        return ResponseEntity.ok(sweetStockShards.shardCounts());
+    }
+
+    // Split a sweet's stock over N shard rows (?shards=<n>)
+    @PostMapping("/hot-skus/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> enableHotSku(@PathVariable Long id, @RequestParam(defaultValue = "8") int shards) {
+        sweetStockShards.enable(id, shards);
+        return ResponseEntity.ok("Sweet " + id + " split into " + shards + " shards");
+    }
+
+    // Fold the shards back into the sweet row
+    @DeleteMapping("/hot-skus/{id}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> disableHotSku(@PathVariable Long id) {
+        sweetStockShards.disable(id);
+        return ResponseEntity.ok("Sweet " + id + " is no longer sharded");
+    }
+
+    // Low-stock alert feed (?after=<last seq>)
+    @GetMapping("/alerts/low-stock")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<LowStockAlertDTO>> lowStockAlerts(@RequestParam(required = false) Long after) {
+        return ResponseEntity.ok(lowStockMonitor.alerts(after));
+    }
+
+    // Per-sweet thresholds (category and default thresholds come from properties)
+    @GetMapping("/alerts/low-stock/thresholds")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<Long, Integer>> lowStockThresholds() {
+        return ResponseEntity.ok(lowStockMonitor.thresholds());
+    }
+
+    @PutMapping("/alerts/low-stock/thresholds/{sweetId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> setLowStockThreshold(@PathVariable Long sweetId, @RequestParam int threshold) {
+        lowStockMonitor.setThreshold(sweetId, threshold);
+        return ResponseEntity.ok("Threshold set");
+    }
+
+    @DeleteMapping("/alerts/low-stock/thresholds/{sweetId}")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<String> clearLowStockThreshold(@PathVariable Long sweetId) {
+        lowStockMonitor.clearThreshold(sweetId);
+        return ResponseEntity.ok("Threshold removed");
+    }
 }
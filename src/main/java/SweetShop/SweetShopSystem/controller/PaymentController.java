@@ -2,42 +2,134 @@ package SweetShop.SweetShopSystem.controller;
 
 import SweetShop.SweetShopSystem.dto.PaymentDTO;
 import SweetShop.SweetShopSystem.dto.PaymentVerifyDTO;
+import SweetShop.SweetShopSystem.service.IdempotencyService;
+import SweetShop.SweetShopSystem.service.PaymentGateway;
 import SweetShop.SweetShopSystem.service.PaymentService;
-import org.json.JSONObject;
+import SweetShop.SweetShopSystem.service.PaymentWebhookService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
 @RestController
 @RequestMapping("/api/payment")
 @CrossOrigin
 public class PaymentController {
 
+    private static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+
     private final PaymentService paymentService;
+    private final IdempotencyService idempotencyService;
+    private final PaymentWebhookService paymentWebhookService;
+    private final ObjectMapper objectMapper;
 
-    public PaymentController(PaymentService paymentService) {
+    public PaymentController(PaymentService paymentService,
+                             IdempotencyService idempotencyService,
+                             PaymentWebhookService paymentWebhookService,
+                             ObjectMapper objectMapper) {
         this.paymentService = paymentService;
+        this.idempotencyService = idempotencyService;
+        this.paymentWebhookService = paymentWebhookService;
+        this.objectMapper = objectMapper;
     }
 
     //  CREATE PAYMENT ORDER
     @PostMapping("/create-order")
-    public ResponseEntity<String> createOrder(@RequestBody PaymentDTO dto) {
-        try {
-            JSONObject order = paymentService.createOrder(dto);
-            return ResponseEntity.ok(order.toString());
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body("Error: " + e.getMessage());
-        }
+    public CompletableFuture<ResponseEntity<String>> createOrder(
+            @RequestBody PaymentDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            Principal principal) {
+        // The request thread is released here; the order completes on a payment thread
+        return once(idempotencyKey, principal, "create-order", dto, () -> paymentService.createOrderAsync(dto)
+                .thenApply(order -> ResponseEntity.ok(order.toString()))
+                .exceptionally(PaymentController::orderError));
     }
 
     //  VERIFY PAYMENT AFTER SUCCESS
     @PostMapping("/verify-payment")
-    public ResponseEntity<String> verifyPayment(@RequestBody PaymentVerifyDTO dto) {
-        String result = paymentService.verifyPayment(
-                dto.getRazorpayOrderId(),
-                dto.getRazorpayPaymentId(),
-                dto.getRazorpaySignature()
-        );
-        return ResponseEntity.ok(result);
+    public CompletableFuture<ResponseEntity<String>> verifyPayment(
+            @RequestBody PaymentVerifyDTO dto,
+            @RequestHeader(value = IDEMPOTENCY_KEY, required = false) String idempotencyKey,
+            Principal principal) {
+        return once(idempotencyKey, principal, "verify-payment", dto, () -> {
+            try {
+                String result = paymentService.verifyPayment(
+                        dto.getRazorpayOrderId(),
+                        dto.getRazorpayPaymentId(),
+                        dto.getRazorpaySignature()
+                );
+                return CompletableFuture.completedFuture(ResponseEntity.ok(result));
+            } catch (RuntimeException e) {
+                // Nothing was decided (e.g. the database is down); the client should retry
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                        .body("Error: Verification Failed, try again"));
+            }
+        });
+    }
+
+    //  PROVIDER WEBHOOK (public; authenticated by its signature over the raw body)
+    @PostMapping("/webhook")
+    public ResponseEntity<String> webhook(
+            @RequestBody byte[] body,
+            @RequestHeader(value = "X-Razorpay-Signature", required = false) String signature,
+            @RequestHeader(value = "X-Razorpay-Event-Id", required = false) String eventId) {
+        try {
+            return switch (paymentWebhookService.accept(body, signature, eventId)) {
+                case ACCEPTED, DUPLICATE -> ResponseEntity.ok("OK");
+                case INVALID_SIGNATURE -> ResponseEntity.badRequest().body("Invalid Signature");
+                case MALFORMED -> ResponseEntity.badRequest().body("Malformed Event");
+            };
+        } catch (RejectedExecutionException e) {
+            // The provider retries later
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error: " + e.getMessage());
+        }
+    }
+
+    // Runs the action, or replays its earlier response when the key was seen before with the same body
+    private CompletableFuture<ResponseEntity<String>> once(
+            String idempotencyKey, Principal principal, String endpoint, Object body,
+            Supplier<CompletableFuture<ResponseEntity<String>>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > IdempotencyService.MAX_KEY_LENGTH) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body("Error: " + IDEMPOTENCY_KEY + " must be at most " + IdempotencyService.MAX_KEY_LENGTH + " characters"));
+        }
+        String scope = IdempotencyService.scope(principal == null ? null : principal.getName(), endpoint, idempotencyKey);
+        String requestHash;
+        try {
+            // Hash the bound DTO, so formatting differences in the JSON don't count as a different body
+            requestHash = IdempotencyService.hash(objectMapper.writeValueAsBytes(body));
+        } catch (JsonProcessingException e) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest().body("Error: " + e.getOriginalMessage()));
+        }
+        return idempotencyService.execute(scope, requestHash, action);
+    }
+
+    // 4xx only for answers that won't change on retry (bad input, no stock, provider rejection)
+    private static ResponseEntity<String> orderError(Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        if (cause instanceof RejectedExecutionException || cause instanceof DataAccessException
+                || !(cause instanceof RuntimeException)) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("Error: " + cause.getMessage());
+        }
+        if (cause instanceof TimeoutException) {
+            return ResponseEntity.status(HttpStatus.GATEWAY_TIMEOUT).body("Error: " + cause.getMessage());
+        }
+        if (cause instanceof PaymentGateway.GatewayFailedException) {
+            return ResponseEntity.status(HttpStatus.BAD_GATEWAY).body("Error: " + cause.getMessage());
+        }
+        return ResponseEntity.badRequest().body("Error: " + cause.getMessage());
     }
 
 }
@@ -1,19 +1,42 @@
 package SweetShop.SweetShopSystem.controller;
 
+import SweetShop.SweetShopSystem.dto.BulkUpdateRequestDTO;
+import SweetShop.SweetShopSystem.dto.BulkUpdateResultDTO;
+import SweetShop.SweetShopSystem.dto.CheckoutRequestDTO;
+import SweetShop.SweetShopSystem.dto.ImportResultDTO;
 import SweetShop.SweetShopSystem.dto.PurchaseRequestDTO;
 import SweetShop.SweetShopSystem.dto.RestockRequestDTO;
+import SweetShop.SweetShopSystem.dto.SweetPageDTO;
 import SweetShop.SweetShopSystem.dto.SweetRequestDTO;
 import SweetShop.SweetShopSystem.dto.SweetUpdateRequestDTO;
 import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.service.SweetCatalog;
+import SweetShop.SweetShopSystem.service.SweetChangeStream;
+import SweetShop.SweetShopSystem.service.SweetCatalogJson;
+import SweetShop.SweetShopSystem.service.SweetImportService;
 import SweetShop.SweetShopSystem.service.SweetService;
+import SweetShop.SweetShopSystem.service.SweetSuggester;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Locale;
 
 @RestController
 @RequestMapping("/api/sweets")
@@ -21,6 +44,12 @@ import java.util.List;
 public class SweetController {
 
     private final SweetService sweetService;
+    private final SweetCatalog sweetCatalog;
+    private final SweetCatalogJson sweetCatalogJson;
+    private final SweetSuggester sweetSuggester;
+    private final SweetImportService sweetImportService;
+    private final SweetChangeStream sweetChangeStream;
+    private final ObjectMapper objectMapper;
 
     // ADD SWEET (Admin)
     @PostMapping
@@ -29,10 +58,135 @@ public class SweetController {
         return ResponseEntity.ok(sweetService.addSweet(dto));
     }
 
-    // GET ALL SWEETS
+    // BULK IMPORT (Admin): raw CSV or NDJSON body, ?format=csv|ndjson
+    @PostMapping("/import")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<ImportResultDTO> importSweets(
+            @RequestParam(defaultValue = "csv") String format,
+            HttpServletRequest request
+    ) throws IOException {
+        return ResponseEntity.ok(sweetImportService.importSweets(request.getInputStream(), format));
+    }
+
+    // BULK EXPORT (Admin): streamed straight from the DB
+    @GetMapping("/export")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<StreamingResponseBody> exportSweets(@RequestParam(defaultValue = "csv") String format) {
+        String ext = "ndjson".equalsIgnoreCase(format) ? "ndjson" : "csv";
+        MediaType type = ext.equals("ndjson")
+                ? MediaType.parseMediaType("application/x-ndjson")
+                : MediaType.parseMediaType("text/csv");
+        StreamingResponseBody body = out -> sweetImportService.exportSweets(out, ext);
+        return ResponseEntity.ok()
+                .contentType(type)
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"sweets." + ext + "\"")
+                .body(body);
+    }
+
+    // GET ALL SWEETS (pre-serialized catalog bytes, 304 if the client is up to date)
     @GetMapping
-    public ResponseEntity<List<Sweet>> getAll() {
-        return ResponseEntity.ok(sweetService.getAllSweets());
+    public ResponseEntity<byte[]> getAll(
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            WebRequest request
+    ) {
+        if (request.checkNotModified(sweetCatalog.etag())) {
+            return notModified(sweetCatalog.etag());
+        }
+
+        SweetCatalogJson.Body body = sweetCatalogJson.body();
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(sweetCatalog.etag(body.version()))
+                .cacheControl(CacheControl.noCache())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+        if (acceptsGzip(acceptEncoding)) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(body.gzip());
+        }
+        return response.body(body.json());
+    }
+
+    // gzip (or x-gzip) listed with a non-zero q-value; otherwise "*" decides
+    static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        Boolean gzip = null;
+        boolean any = false;
+        for (String token : acceptEncoding.split(",")) {
+            String[] parts = token.split(";");
+            String coding = parts[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1.0;
+            for (int i = 1; i < parts.length; i++) {
+                String param = parts[i].trim();
+                if (param.regionMatches(true, 0, "q=", 0, 2)) {
+                    try {
+                        q = Double.parseDouble(param.substring(2).trim());
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("gzip") || coding.equals("x-gzip")) {
+                gzip = q > 0;
+            } else if (coding.equals("*")) {
+                any = q > 0;
+            }
+        }
+        return gzip != null ? gzip : any;
+    }
+
+    // GET MANY SWEETS IN ONE CALL (?ids=1,2,3), in request order
+    @GetMapping("/batch")
+    public ResponseEntity<List<Sweet>> getBatch(@RequestParam List<Long> ids, WebRequest request) {
+        String etag = sweetCatalog.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(sweetService.getSweetsByIds(ids));
+    }
+
+    // GET SWEETS PAGE BY PAGE (?after=<last id>&size=<n>)
+    @GetMapping("/page")
+    public ResponseEntity<SweetPageDTO> getPage(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer size
+    ) {
+        return ResponseEntity.ok(sweetService.getSweetsPage(after, size));
+    }
+
+    // STREAM ALL SWEETS as one JSON array, written row by row
+    @GetMapping("/stream")
+    public ResponseEntity<StreamingResponseBody> stream() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator json = objectMapper.getFactory().createGenerator(out)) {
+                json.writeStartArray();
+                sweetService.streamAllSweets(sweet -> {
+                    try {
+                        json.writeObject(sweet);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                json.writeEndArray();
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    // LIVE CATALOG / STOCK CHANGES (Server-Sent Events)
+    @GetMapping(value = "/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> events() {
+        try {
+            return ResponseEntity.ok(sweetChangeStream.subscribe());
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
     }
 
     // SEARCH SWEETS
@@ -41,11 +195,30 @@ public class SweetController {
             @RequestParam(required = false) String name,
             @RequestParam(required = false) String category,
             @RequestParam(required = false) Double minPrice,
-            @RequestParam(required = false) Double maxPrice
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean inStock,
+            WebRequest request
     ) {
-        return ResponseEntity.ok(
-                sweetService.search(name, category, minPrice, maxPrice)
-        );
+        // Read the version first: the catalog publishes a version only after the
+        // search indexes have applied it, so the results are at least this new
+        String etag = sweetCatalog.etag();
+        if (request.checkNotModified(etag)) {
+            return notModified(etag);
+        }
+
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(sweetService.search(name, category, minPrice, maxPrice, inStock));
+    }
+
+    // AUTOCOMPLETE SWEET NAMES AND CATEGORIES
+    @GetMapping("/suggest")
+    public ResponseEntity<List<String>> suggest(
+            @RequestParam("q") String prefix,
+            @RequestParam(required = false) Integer limit
+    ) {
+        return ResponseEntity.ok(sweetSuggester.suggest(prefix, limit));
     }
 
     // UPDATE SWEET (Admin)
@@ -77,6 +250,12 @@ public class SweetController {
         );
     }
 
+    // CHECKOUT CART (User)
+    @PostMapping("/checkout")
+    public ResponseEntity<List<Sweet>> checkout(@RequestBody CheckoutRequestDTO dto) {
+        return ResponseEntity.ok(sweetService.checkout(dto.getItems()));
+    }
+
     // RESTOCK SWEET (Admin Only)
     @PostMapping("/{id}/restock")
     @PreAuthorize("hasRole('ADMIN')")
@@ -89,6 +268,13 @@ public class SweetController {
         );
     }
 
+    // BULK RESTOCK / PRICE UPDATE (Admin Only)
+    @PostMapping("/bulk-update")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<BulkUpdateResultDTO>> bulkUpdate(@RequestBody BulkUpdateRequestDTO dto) {
+        return ResponseEntity.ok(sweetService.bulkUpdate(dto.getItems()));
+    }
+
     @PostMapping("/{id}/upload-image")
     @PreAuthorize("hasRole('ADMIN')")
     public ResponseEntity<Sweet> uploadImage(
@@ -98,4 +284,10 @@ public class SweetController {
         return ResponseEntity.ok(sweetService.uploadImage(id, file));
     }
 
+    private static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .build();
+    }
 }
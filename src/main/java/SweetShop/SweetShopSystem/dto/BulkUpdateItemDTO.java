@@ -0,0 +1,13 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateItemDTO {
+    private Long sweetId;
+    private Integer restock; // quantity delta, may be negative for corrections
+    private Double price;    // new price, null keeps the current one
+}
@@ -0,0 +1,15 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkUpdateResultDTO {
+    private Long sweetId;
+    private boolean updated;
+    private String error;      // why the item was skipped, null when updated
+    private Integer quantity;  // values after the update
+    private Double price;
+}
@@ -0,0 +1,12 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutItemDTO {
+    private Long sweetId;
+    private int quantity;
+}
@@ -0,0 +1,13 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class CheckoutRequestDTO {
+    private List<CheckoutItemDTO> items; // one line per sweet in the cart
+}
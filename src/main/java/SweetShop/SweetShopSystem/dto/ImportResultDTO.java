@@ -0,0 +1,18 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ImportResultDTO {
+    private long imported;
+    private long rejected;
+    private List<String> errors;     // first few rejected lines, with the reason
+    private long elapsedMillis;
+    private double rowsPerSecond;
+}
@@ -0,0 +1,18 @@
+package SweetShop.SweetShopSystem.dto;
+
+import lombok.*;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockAlertDTO {
+    private long seq;          // feed cursor, increasing
+    private Long sweetId;
+    private String name;
+    private String category;
+    private String type;       // LOW, SOLD_OUT, RECOVERED
+    private int quantity;
+    private int threshold;
+    private long createdAt;
+}
@@ -0,0 +1,15 @@
+package SweetShop.SweetShopSystem.dto;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweetPageDTO {
+    private List<Sweet> items;
+    private Long nextCursor; // pass as ?after= for the next page, null on the last page
+}
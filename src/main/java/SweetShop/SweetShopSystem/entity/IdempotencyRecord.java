@@ -0,0 +1,29 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "idempotency_record", indexes = @Index(name = "idx_idempotency_expires", columnList = "expiresAt"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    // user | endpoint | Idempotency-Key
+    @Id
+    @Column(length = 512)
+    private String scopeKey;
+
+    private int statusCode;
+
+    @Column(length = 8000)
+    private String body;
+
+    // SHA-256 of the request body; null on records written before it was stored
+    @Column(length = 64)
+    private String requestHash;
+
+    private long expiresAt;
+}
@@ -0,0 +1,37 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One stock change, appended in the same transaction as the write to
+ * {@code sweet.quantity}. Rows are never updated or deleted.
+ */
+@Entity
+@Table(name = "inventory_event", indexes = @Index(name = "idx_inventory_event_sweet", columnList = "sweetId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventoryEvent {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long sweetId;
+
+    // Signed change in quantity
+    private int delta;
+
+    // Quantity right after the change, null when only the delta is known
+    private Integer quantityAfter;
+
+    @Enumerated(EnumType.STRING)
+    private InventoryEventType type;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Long createdAt = System.currentTimeMillis();
+}
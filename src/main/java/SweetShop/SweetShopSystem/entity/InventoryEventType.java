@@ -0,0 +1,13 @@
+package SweetShop.SweetShopSystem.entity;
+
+public enum InventoryEventType {
+    CREATE,
+    PURCHASE,
+    CHECKOUT,
+    RELEASE,
+    RESTOCK,
+    ADJUST,        // admin edit of the quantity
+    BULK_UPDATE,
+    LEDGER_FLUSH,  // net delta written behind by the stock ledger
+    DELETE
+}
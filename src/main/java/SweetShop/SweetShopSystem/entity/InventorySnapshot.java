@@ -0,0 +1,31 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * Compacted stock per sweet as of {@link #lastEventId}; the per-sweet rows
+ * live in {@link InventorySnapshotItem}.
+ */
+@Entity
+@Table(name = "inventory_snapshot")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class InventorySnapshot {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Every event up to and including this id is folded in
+    private long lastEventId;
+
+    private int sweetCount;
+
+    @Builder.Default
+    @Column(updatable = false)
+    private Long createdAt = System.currentTimeMillis();
+}
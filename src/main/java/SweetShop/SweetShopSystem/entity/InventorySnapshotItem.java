@@ -0,0 +1,21 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "inventory_snapshot_item", indexes = @Index(name = "idx_snapshot_item_snapshot", columnList = "snapshotId"))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventorySnapshotItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long snapshotId;
+    private Long sweetId;
+    private int quantity;
+}
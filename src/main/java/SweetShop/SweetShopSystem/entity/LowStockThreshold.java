@@ -0,0 +1,19 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+// Per-sweet low-stock threshold set by an admin (overrides category and default)
+@Entity
+@Table(name = "low_stock_threshold")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+public class LowStockThreshold {
+
+    @Id
+    private Long sweetId;
+
+    private int threshold;
+}
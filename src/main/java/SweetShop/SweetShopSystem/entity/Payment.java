@@ -4,7 +4,11 @@ import jakarta.persistence.*;
 import lombok.*;
 
 @Entity
-@Table(name = "payments")
+@Table(name = "payments", indexes = {
+        @Index(name = "ux_payments_order_id", columnList = "razorpayOrderId", unique = true),
+        @Index(name = "ux_payments_payment_id", columnList = "razorpayPaymentId", unique = true),
+        @Index(name = "idx_payments_status", columnList = "status")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -24,8 +28,15 @@ public class Payment {
 
     private double amount;
 
-    private String status; // CREATED, PAID, FAILED
+    // Stored by name, so rows written before the enum still map
+    @Enumerated(EnumType.STRING)
+    @Column(length = 16)
+    private PaymentStatus status;
 
+    // true while (or once) stock is held for this order
+    private Boolean stockReserved;
+
+    @Builder.Default
     @Column(updatable = false)
     private Long createdAt = System.currentTimeMillis();
 }
@@ -0,0 +1,18 @@
+package SweetShop.SweetShopSystem.entity;
+
+public enum PaymentStatus {
+    CREATED,   // gateway order open, waiting for the customer
+    PAID,      // signature verified
+    FAILED;    // expired unpaid or declined
+
+    // CREATED -> PAID / FAILED; PAID and FAILED are final
+    public boolean canMoveTo(PaymentStatus next) {
+        return this == CREATED && (next == PAID || next == FAILED);
+    }
+
+    public void requireMoveTo(PaymentStatus next) {
+        if (!canMoveTo(next)) {
+            throw new RuntimeException("Payment cannot move from " + this + " to " + next);
+        }
+    }
+}
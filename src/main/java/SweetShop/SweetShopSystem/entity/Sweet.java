@@ -1,5 +1,6 @@
 package SweetShop.SweetShopSystem.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -21,4 +22,10 @@ public class Sweet {
     private double price;
     private int quantity;
     private String imageUrl;
+
+    // Number of stock shards while this is a hot SKU, null otherwise.
+    // Only written through SweetBatchRepository, never by entity saves.
+    @JsonIgnore
+    @Column(updatable = false)
+    private Integer stockShards;
 }
@@ -0,0 +1,27 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * One slice of a hot sweet's stock. While a sweet is sharded the sum of its
+ * shards is the real stock and {@code sweet.quantity} is a published copy.
+ */
+@Entity
+@Table(name = "sweet_stock_shard",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"sweetId", "shard"}))
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SweetStockShard {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long sweetId;
+    private int shard;
+    private int quantity;
+}
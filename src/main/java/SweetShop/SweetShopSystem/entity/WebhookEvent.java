@@ -0,0 +1,29 @@
+package SweetShop.SweetShopSystem.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+@Entity
+@Table(name = "webhook_event")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class WebhookEvent {
+
+    // Provider event id (X-Razorpay-Event-Id)
+    @Id
+    @Column(length = 64)
+    private String eventId;
+
+    @Column(length = 64)
+    private String type;      // payment.captured, payment.failed, ...
+
+    private String razorpayOrderId;
+
+    // true when the event changed the payment's status
+    private boolean applied;
+
+    private long receivedAt;
+}
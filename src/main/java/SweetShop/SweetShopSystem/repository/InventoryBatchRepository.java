@@ -0,0 +1,60 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * JDBC batch access to the inventory journal tables, for the bulk paths
+ * where going through JPA would mean one INSERT per row.
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public void insertSnapshotItems(long snapshotId, Map<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((sweetId, quantity) -> args.add(new Object[]{snapshotId, sweetId, quantity}));
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_snapshot_item (snapshot_id, sweet_id, quantity) VALUES (?, ?, ?)",
+                args
+        );
+    }
+
+    public Map<Long, Integer> loadSnapshotItems(long snapshotId) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        jdbcTemplate.query(
+                "SELECT sweet_id, quantity FROM inventory_snapshot_item WHERE snapshot_id = ?",
+                rs -> {
+                    quantities.put(rs.getLong(1), rs.getInt(2));
+                },
+                snapshotId
+        );
+        return quantities;
+    }
+
+    public void deleteSnapshotItems(long snapshotId) {
+        jdbcTemplate.update("DELETE FROM inventory_snapshot_item WHERE snapshot_id = ?", snapshotId);
+    }
+
+    // CREATE events for freshly inserted sweets (ids already set)
+    public void insertCreateEvents(List<Sweet> sweets, long createdAt) {
+        List<Object[]> args = new ArrayList<>(sweets.size());
+        for (Sweet sweet : sweets) {
+            args.add(new Object[]{sweet.getId(), sweet.getQuantity(), sweet.getQuantity(), createdAt});
+        }
+        jdbcTemplate.batchUpdate(
+                "INSERT INTO inventory_event (sweet_id, delta, quantity_after, type, created_at) " +
+                "VALUES (?, ?, ?, 'CREATE', ?)",
+                args
+        );
+    }
+}
@@ -0,0 +1,24 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+public interface InventoryEventRepository extends JpaRepository<InventoryEvent, Long> {
+
+    // Event feed, oldest first (keyset on id)
+    List<InventoryEvent> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Tail between two ids, used for snapshot compaction and rebuilds
+    List<InventoryEvent> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long afterId, Long upToId, Pageable pageable);
+
+    // Highest id old enough that no lower id can still be in flight
+    @Query("SELECT MAX(e.id) FROM InventoryEvent e WHERE e.createdAt <= :before")
+    Long findMaxIdCreatedBefore(Long before);
+
+    @Query("SELECT MAX(e.id) FROM InventoryEvent e")
+    Long findMaxId();
+}
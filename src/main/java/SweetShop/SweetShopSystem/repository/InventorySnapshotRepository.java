@@ -0,0 +1,14 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.InventorySnapshot;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface InventorySnapshotRepository extends JpaRepository<InventorySnapshot, Long> {
+
+    Optional<InventorySnapshot> findTopByOrderByIdDesc();
+
+    List<InventorySnapshot> findByIdLessThan(Long id);
+}
@@ -0,0 +1,7 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.LowStockThreshold;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+public interface LowStockThresholdRepository extends JpaRepository<LowStockThreshold, Long> {
+}
@@ -1,8 +1,55 @@
 package SweetShop.SweetShopSystem.repository;
 
 import SweetShop.SweetShopSystem.entity.Payment;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
 
 public interface PaymentRepository extends JpaRepository<Payment, Long> {
     Payment findByRazorpayOrderId(String orderId);
+
+    // Orders still holding stock (used to re-arm reservation timers on startup)
+    List<Payment> findByStatusAndStockReservedTrue(PaymentStatus status);
+
+    // Moves an order from one status to another in one UPDATE; returns 0 if it wasn't in 'from'
+    default int transition(String orderId, PaymentStatus from, PaymentStatus to) {
+        from.requireMoveTo(to);
+        return updateStatus(orderId, from, to);
+    }
+
+    // Verified payment: CREATED -> PAID, recording the gateway ids; 0 if no longer CREATED
+    default int markPaid(String orderId, String paymentId, String signature) {
+        PaymentStatus.CREATED.requireMoveTo(PaymentStatus.PAID);
+        return updateStatus(orderId, PaymentStatus.CREATED, PaymentStatus.PAID, paymentId, signature);
+    }
+
+    // Expire an unpaid order; returns 0 if it was paid (or changed) meanwhile
+    default int expireIfUnpaid(String orderId) {
+        return transition(orderId, PaymentStatus.CREATED, PaymentStatus.FAILED);
+    }
+
+    // Gateway order created: the provisional receipt id becomes its order id; 0 if no longer CREATED
+    default int assignOrderId(String receipt, String orderId) {
+        return updateOrderId(receipt, orderId, PaymentStatus.CREATED);
+    }
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.razorpayOrderId = :orderId WHERE p.razorpayOrderId = :receipt AND p.status = :status")
+    int updateOrderId(String receipt, String orderId, PaymentStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to WHERE p.razorpayOrderId = :orderId AND p.status = :from")
+    int updateStatus(String orderId, PaymentStatus from, PaymentStatus to);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE Payment p SET p.status = :to, p.razorpayPaymentId = :paymentId, p.razorpaySignature = :signature " +
+            "WHERE p.razorpayOrderId = :orderId AND p.status = :from")
+    int updateStatus(String orderId, PaymentStatus from, PaymentStatus to, String paymentId, String signature);
 }
@@ -0,0 +1,116 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.SqlParameterValue;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Set-based stock writes sent as single JDBC batches.
+ * Callers pass maps sorted by id so row locks are always taken in the same
+ * order, which keeps concurrent multi-row transactions deadlock-free.
+ */
+@Repository
+@RequiredArgsConstructor
+public class SweetBatchRepository {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    // Conditional decrement per sweet; an entry of 0 means not enough stock (or no such sweet, or it is sharded)
+    public int[] decrementStock(SortedMap<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, id, quantity}));
+        return jdbcTemplate.batchUpdate(
+                "UPDATE sweet SET quantity = quantity - ? WHERE id = ? AND quantity >= ? AND stock_shards IS NULL",
+                args
+        );
+    }
+
+    // Unconditional decrement, for stock that was already admitted elsewhere
+    public int[] subtractStock(SortedMap<Long, Integer> quantities) {
+        List<Object[]> args = new ArrayList<>(quantities.size());
+        quantities.forEach((id, quantity) -> args.add(new Object[]{quantity, id}));
+        return jdbcTemplate.batchUpdate(
+                "UPDATE sweet SET quantity = quantity - ? WHERE id = ?",
+                args
+        );
+    }
+
+    public record StockPriceChange(int restock, Double price) {
+    }
+
+    // Restock delta plus optional new price; 0 means no such sweet or stock would go negative.
+    // Sharded sweets only match with includeSharded, once the caller holds their shard locks.
+    public int[] applyChanges(SortedMap<Long, StockPriceChange> changes, boolean includeSharded) {
+        List<Object[]> args = new ArrayList<>(changes.size());
+        changes.forEach((id, change) -> args.add(new Object[]{
+                change.restock(), new SqlParameterValue(Types.DOUBLE, change.price()), id, change.restock()
+        }));
+        return jdbcTemplate.batchUpdate(
+                "UPDATE sweet SET quantity = quantity + ?, price = COALESCE(?, price) WHERE id = ? AND quantity + ? >= 0"
+                        + (includeSharded ? "" : " AND stock_shards IS NULL"),
+                args
+        );
+    }
+
+    // Row-locks a sweet and returns its quantity, null if it doesn't exist
+    public Integer lockQuantity(Long id) {
+        List<Integer> rows = jdbcTemplate.queryForList("SELECT quantity FROM sweet WHERE id = ? FOR UPDATE", Integer.class, id);
+        return rows.isEmpty() ? null : rows.get(0);
+    }
+
+    // Published quantity of a sharded sweet (the shards hold the real stock)
+    public int setQuantity(Long id, int quantity) {
+        return jdbcTemplate.update("UPDATE sweet SET quantity = ? WHERE id = ?", quantity, id);
+    }
+
+    public int setStockShards(Long id, Integer shards) {
+        return jdbcTemplate.update("UPDATE sweet SET stock_shards = ? WHERE id = ?",
+                new SqlParameterValue(Types.INTEGER, shards), id);
+    }
+
+    // Multi-row insert; the ids the identity column generates are set back on the sweets
+    public void insert(List<Sweet> sweets) {
+        GeneratedKeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(
+                connection -> connection.prepareStatement(
+                        "INSERT INTO sweet (name, category, price, quantity, image_url) VALUES (?, ?, ?, ?, ?)",
+                        new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Sweet sweet = sweets.get(i);
+                        ps.setString(1, sweet.getName());
+                        ps.setString(2, sweet.getCategory());
+                        ps.setDouble(3, sweet.getPrice());
+                        ps.setInt(4, sweet.getQuantity());
+                        ps.setString(5, sweet.getImageUrl());
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return sweets.size();
+                    }
+                },
+                keys
+        );
+        List<Map<String, Object>> ids = keys.getKeyList();
+        if (ids.size() != sweets.size()) {
+            throw new IllegalStateException("Expected " + sweets.size() + " generated ids, got " + ids.size());
+        }
+        for (int i = 0; i < sweets.size(); i++) {
+            sweets.get(i).setId(((Number) ids.get(i).values().iterator().next()).longValue());
+        }
+    }
+}
@@ -1,10 +1,17 @@
 package SweetShop.SweetShopSystem.repository;
 
 import SweetShop.SweetShopSystem.entity.Sweet;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.stream.Stream;
 
 public interface SweetRepository extends JpaRepository<Sweet, Long> {
 
@@ -21,4 +28,32 @@ public interface SweetRepository extends JpaRepository<Sweet, Long> {
             "(:minPrice IS NULL OR s.price >= :minPrice) AND " +
             "(:maxPrice IS NULL OR s.price <= :maxPrice)")
     List<Sweet> search(String name, String category, Double minPrice, Double maxPrice);
+
+    // Keyset pagination: next page starts after the last seen id
+    List<Sweet> findByIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Streams rows from a server-side cursor; must be consumed inside a transaction
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT s FROM Sweet s ORDER BY s.id")
+    Stream<Sweet> streamAll();
+
+    // Atomic purchase: succeeds (returns 1) only if enough stock is left.
+    // Sharded (hot) sweets never match; their stock lives in SweetStockShard.
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Sweet s SET s.quantity = s.quantity - :quantity " +
+            "WHERE s.id = :id AND s.quantity >= :quantity AND s.stockShards IS NULL")
+    int decrementStock(Long id, int quantity);
+
+    // Committed rows as [id, name, category, price, quantity, imageUrl]; scalar, so
+    // entities still attached to the caller's persistence context are not reused
+    @Query("SELECT s.id, s.name, s.category, s.price, s.quantity, s.imageUrl FROM Sweet s WHERE s.id IN :ids")
+    List<Object[]> findRows(Collection<Long> ids);
+
+    // Gives stock back (released reservations)
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Sweet s SET s.quantity = s.quantity + :quantity WHERE s.id = :id AND s.stockShards IS NULL")
+    int incrementStock(Long id, int quantity);
 }
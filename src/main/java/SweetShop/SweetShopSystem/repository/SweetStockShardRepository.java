@@ -0,0 +1,48 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.SweetStockShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface SweetStockShardRepository extends JpaRepository<SweetStockShard, Long> {
+
+    // All shards of a sweet, row-locked in shard order (one global lock order)
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT h FROM SweetStockShard h WHERE h.sweetId = :sweetId ORDER BY h.shard")
+    List<SweetStockShard> lockBySweetId(Long sweetId);
+
+    // Locks one shard with enough left that nobody else holds, starting at a random offset.
+    // Never waits, so a purchase holds no shard lock before it falls back to lockBySweetId.
+    @Query(value = "SELECT shard FROM sweet_stock_shard WHERE sweet_id = :sweetId AND quantity >= :quantity " +
+            "ORDER BY MOD(shard + :offset, :shards) FETCH FIRST 1 ROWS ONLY FOR UPDATE SKIP LOCKED",
+            nativeQuery = true)
+    Optional<Integer> claim(Long sweetId, int quantity, int offset, int shards);
+
+    // Takes from one shard only if it has enough left
+    @Modifying
+    @Query("UPDATE SweetStockShard h SET h.quantity = h.quantity - :quantity " +
+            "WHERE h.sweetId = :sweetId AND h.shard = :shard AND h.quantity >= :quantity")
+    int decrement(Long sweetId, int shard, int quantity);
+
+    @Modifying
+    @Query("UPDATE SweetStockShard h SET h.quantity = h.quantity + :quantity " +
+            "WHERE h.sweetId = :sweetId AND h.shard = :shard")
+    int increment(Long sweetId, int shard, int quantity);
+
+    @Query("SELECT COALESCE(SUM(h.quantity), 0) FROM SweetStockShard h WHERE h.sweetId = :sweetId")
+    int totalQuantity(Long sweetId);
+
+    // [sweetId, shard count] for every sharded sweet
+    @Query("SELECT h.sweetId, COUNT(h) FROM SweetStockShard h GROUP BY h.sweetId")
+    List<Object[]> countBySweet();
+
+    @Modifying
+    @Query("DELETE FROM SweetStockShard h WHERE h.sweetId = :sweetId")
+    int deleteBySweetId(Long sweetId);
+}
@@ -31,6 +31,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 path.startsWith("/api/health") ||
                 path.equals("/api/sweets")||
                 path.startsWith("/api/sweets/search") ||
+                path.equals("/api/sweets/page") ||
+                path.equals("/api/sweets/stream") ||
+                path.equals("/api/sweets/suggest") ||
+                path.equals("/api/sweets/events") ||
+                path.equals("/api/sweets/batch") ||
+                path.equals("/api/payment/webhook") ||
                 path.equals("/error");
     }
 
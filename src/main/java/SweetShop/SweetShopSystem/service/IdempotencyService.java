@@ -0,0 +1,205 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.IdempotencyRecord;
+import SweetShop.SweetShopSystem.repository.IdempotencyRecordRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.HttpStatusCode;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Replays the first response for requests repeated with the same
+ * {@code Idempotency-Key}, so a client retrying on a timeout doesn't create a
+ * second gateway order and payment row.
+ *
+ * Keys are scoped by user and endpoint. Recent responses sit in a bounded LRU
+ * map; every response is also written to {@code idempotency_record} so a
+ * retry still finds it after eviction or a restart, until the TTL runs out.
+ * A duplicate that arrives while the first is still running waits for the
+ * same result instead of executing again. Only successes and client errors
+ * that a retry can't change are remembered; server errors, 408 and 429 are
+ * not, so those requests can be retried for real.
+ *
+ * Each entry also keeps a hash of the request body. Reusing a key with a
+ * different body is a client bug, answered with 422 rather than a replay.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+    public static final int MAX_KEY_LENGTH = 128;
+
+    private record Stored(int status, String body, String requestHash, long expiresAt) {
+
+        ResponseEntity<String> toResponse() {
+            return ResponseEntity.status(status).header(REPLAYED_HEADER, "true").body(body);
+        }
+    }
+
+    private record Running(String requestHash, CompletableFuture<ResponseEntity<String>> result) {
+    }
+
+    private final IdempotencyRecordRepository recordRepository;
+
+    @Value("${payment.idempotency.ttl-ms:86400000}")
+    private long ttlMillis;
+
+    @Value("${payment.idempotency.cache-size:10000}")
+    private int cacheSize;
+
+    // Guarded by itself; access order, so the least recently used entry is evicted
+    private final LinkedHashMap<String, Stored> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Stored> eldest) {
+            return size() > cacheSize;
+        }
+    };
+
+    private final Map<String, Running> inFlight = new ConcurrentHashMap<>();
+
+    public static String scope(String user, String endpoint, String key) {
+        return (user == null ? "anonymous" : user) + "|" + endpoint + "|" + key;
+    }
+
+    // Hex SHA-256 of a request body
+    public static String hash(byte[] body) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    // EXECUTE ONCE: the stored response for this scope, or the action's
+    public CompletableFuture<ResponseEntity<String>> execute(String scope, String requestHash,
+                                                             Supplier<CompletableFuture<ResponseEntity<String>>> action) {
+        long now = System.currentTimeMillis();
+        Stored stored = cached(scope, now);
+        if (stored != null) {
+            return CompletableFuture.completedFuture(replay(stored, requestHash));
+        }
+
+        CompletableFuture<ResponseEntity<String>> result = new CompletableFuture<>();
+        Running running = new Running(requestHash, result);
+        Running earlier = inFlight.putIfAbsent(scope, running);
+        if (earlier != null) {
+            if (!sameRequest(earlier.requestHash(), requestHash)) {
+                return CompletableFuture.completedFuture(keyReused());
+            }
+            // Same request already in progress: share its outcome
+            return earlier.result().thenApply(response -> ResponseEntity.status(response.getStatusCode())
+                    .header(REPLAYED_HEADER, "true").body(response.getBody()));
+        }
+
+        try {
+            stored = load(scope, now);
+            if (stored != null) {
+                finish(scope, running, replay(stored, requestHash));
+                return result;
+            }
+            action.get().whenComplete((response, error) -> {
+                if (error != null) {
+                    inFlight.remove(scope, running);
+                    result.completeExceptionally(error);
+                    return;
+                }
+                if (replayable(response.getStatusCode())) {
+                    remember(scope, requestHash, response);
+                }
+                finish(scope, running, response);
+            });
+        } catch (RuntimeException e) {
+            inFlight.remove(scope, running);
+            result.completeExceptionally(e);
+        }
+        return result;
+    }
+
+    @Scheduled(fixedDelayString = "${payment.idempotency.cleanup-ms:3600000}")
+    public void purgeExpired() {
+        int deleted = recordRepository.deleteExpired(System.currentTimeMillis());
+        if (deleted > 0) {
+            log.info("Purged {} expired idempotency records", deleted);
+        }
+    }
+
+    private Stored cached(String scope, long now) {
+        synchronized (cache) {
+            Stored stored = cache.get(scope);
+            if (stored != null && stored.expiresAt() < now) {
+                cache.remove(scope);
+                return null;
+            }
+            return stored;
+        }
+    }
+
+    // DB fallback for responses evicted from memory or stored before a restart
+    private Stored load(String scope, long now) {
+        IdempotencyRecord record = recordRepository.findById(scope).orElse(null);
+        if (record == null || record.getExpiresAt() < now) {
+            return null;
+        }
+        Stored stored = new Stored(record.getStatusCode(), record.getBody(), record.getRequestHash(), record.getExpiresAt());
+        synchronized (cache) {
+            cache.put(scope, stored);
+        }
+        return stored;
+    }
+
+    private void remember(String scope, String requestHash, ResponseEntity<String> response) {
+        Stored stored = new Stored(response.getStatusCode().value(), response.getBody(), requestHash,
+                System.currentTimeMillis() + ttlMillis);
+        synchronized (cache) {
+            cache.put(scope, stored);
+        }
+        try {
+            recordRepository.save(new IdempotencyRecord(scope, stored.status(), stored.body(),
+                    stored.requestHash(), stored.expiresAt()));
+        } catch (RuntimeException e) {
+            // Still replayed from memory; only the restart fallback is lost
+            log.warn("Could not persist idempotency record: {}", e.getMessage());
+        }
+    }
+
+    private static boolean replayable(HttpStatusCode status) {
+        return status.is2xxSuccessful() || status.is4xxClientError()
+                && status.value() != HttpStatus.REQUEST_TIMEOUT.value()
+                && status.value() != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static ResponseEntity<String> replay(Stored stored, String requestHash) {
+        return sameRequest(stored.requestHash(), requestHash) ? stored.toResponse() : keyReused();
+    }
+
+    private static boolean sameRequest(String seen, String requestHash) {
+        // Records from before hashes were kept can't be compared
+        return seen == null || seen.equals(requestHash);
+    }
+
+    private static ResponseEntity<String> keyReused() {
+        return ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                .body("Error: Idempotency-Key was already used with a different request body");
+    }
+
+    private void finish(String scope, Running running, ResponseEntity<String> response) {
+        inFlight.remove(scope, running);
+        running.result().complete(response);
+    }
+}
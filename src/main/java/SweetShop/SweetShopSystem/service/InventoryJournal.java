@@ -0,0 +1,177 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.InventorySnapshot;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.InventorySnapshotRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Append-only history of every stock change, plus periodic compacted snapshots.
+ *
+ * Writers call {@code record*} inside the transaction that changes
+ * {@code sweet.quantity}, so the event commits or rolls back with it. Events
+ * for one sweet are inserted while its row lock is held, so their id order is
+ * the order the changes happened in.
+ *
+ * A scheduled job folds the events into a new snapshot. It only consumes
+ * events older than {@code inventory.snapshot.safety-lag-ms}, because an
+ * identity id is taken at insert time and a lower id may still be
+ * uncommitted; the lag has to exceed the longest stock-writing transaction.
+ * Current stock is the latest snapshot plus the event tail after it.
+ *
+ * Compaction runs on its own thread, not the shared scheduler, so a long fold
+ * never delays the ledger flush or the reservation tick.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class InventoryJournal {
+
+    private static final int TAIL_PAGE = 1000;
+
+    private final InventoryEventRepository eventRepository;
+    private final InventorySnapshotRepository snapshotRepository;
+    private final InventoryBatchRepository batchRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ScheduledExecutorService compactor = Executors.newSingleThreadScheduledExecutor(
+            Thread.ofPlatform().name("inventory-snapshot").daemon().factory());
+
+    @Value("${inventory.snapshot.interval-ms:300000}")
+    private long intervalMillis;
+
+    @Value("${inventory.snapshot.safety-lag-ms:10000}")
+    private long safetyLagMillis;
+
+    @Value("${inventory.snapshot.keep:2}")
+    private int snapshotsToKeep;
+
+    @Value("${inventory.events.max-page:1000}")
+    private int maxPageSize;
+
+    @PostConstruct
+    public void start() {
+        compactor.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (RuntimeException e) {
+                // A thrown task would never be scheduled again
+                log.warn("Inventory snapshot failed, will retry: {}", e.getMessage());
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        compactor.shutdownNow();
+    }
+
+    // RECORD: quantity after the change is known (row was just updated and read)
+    public void record(Long sweetId, int delta, int quantityAfter, InventoryEventType type) {
+        eventRepository.save(event(sweetId, delta, quantityAfter, type));
+    }
+
+    public void recordAll(List<InventoryEvent> events) {
+        eventRepository.saveAll(events);
+    }
+
+    public static InventoryEvent event(Long sweetId, int delta, Integer quantityAfter, InventoryEventType type) {
+        return InventoryEvent.builder()
+                .sweetId(sweetId)
+                .delta(delta)
+                .quantityAfter(quantityAfter)
+                .type(type)
+                .build();
+    }
+
+    // FEED: events after a cursor, oldest first
+    public List<InventoryEvent> events(Long after, Integer size) {
+        int pageSize = size == null || size <= 0 ? maxPageSize : Math.min(size, maxPageSize);
+        return eventRepository.findByIdGreaterThanOrderByIdAsc(after == null ? 0L : after, PageRequest.ofSize(pageSize));
+    }
+
+    // REBUILD: stock per sweet from the latest snapshot plus every later event
+    public Map<Long, Integer> rebuild() {
+        Long maxId = eventRepository.findMaxId();
+        Optional<InventorySnapshot> latest = snapshotRepository.findTopByOrderByIdDesc();
+        Map<Long, Integer> stock = latest.map(s -> batchRepository.loadSnapshotItems(s.getId()))
+                .orElseGet(HashMap::new);
+        long from = latest.map(InventorySnapshot::getLastEventId).orElse(0L);
+        if (maxId != null) {
+            fold(stock, from, maxId);
+        }
+        return new TreeMap<>(stock);
+    }
+
+    // COMPACT: new snapshot = previous snapshot + settled events
+    public void snapshot() {
+        Long upTo = eventRepository.findMaxIdCreatedBefore(System.currentTimeMillis() - safetyLagMillis);
+        Optional<InventorySnapshot> previous = snapshotRepository.findTopByOrderByIdDesc();
+        long from = previous.map(InventorySnapshot::getLastEventId).orElse(0L);
+        if (upTo == null || upTo <= from) {
+            return;
+        }
+
+        long started = System.nanoTime();
+        Map<Long, Integer> stock = previous.map(s -> batchRepository.loadSnapshotItems(s.getId()))
+                .orElseGet(HashMap::new);
+        fold(stock, from, upTo);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            InventorySnapshot saved = snapshotRepository.save(InventorySnapshot.builder()
+                    .lastEventId(upTo)
+                    .sweetCount(stock.size())
+                    .build());
+            batchRepository.insertSnapshotItems(saved.getId(), stock);
+
+            // Older snapshots are redundant once a newer one exists
+            List<InventorySnapshot> old = snapshotRepository.findByIdLessThan(saved.getId());
+            old.sort(Comparator.comparing(InventorySnapshot::getId).reversed());
+            for (InventorySnapshot stale : old.subList(Math.min(old.size(), Math.max(0, snapshotsToKeep - 1)), old.size())) {
+                batchRepository.deleteSnapshotItems(stale.getId());
+                snapshotRepository.delete(stale);
+            }
+        });
+        log.info("Inventory snapshot up to event {} ({} sweets) in {} ms",
+                upTo, stock.size(), (System.nanoTime() - started) / 1_000_000);
+    }
+
+    // Applies events (from, upTo] in id order, a page at a time
+    private void fold(Map<Long, Integer> stock, long from, long upTo) {
+        long cursor = from;
+        while (true) {
+            List<InventoryEvent> page = eventRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                    cursor, upTo, PageRequest.ofSize(TAIL_PAGE));
+            for (InventoryEvent event : page) {
+                if (event.getType() == InventoryEventType.DELETE) {
+                    stock.remove(event.getSweetId());
+                } else if (event.getQuantityAfter() != null) {
+                    stock.put(event.getSweetId(), event.getQuantityAfter());
+                } else {
+                    stock.merge(event.getSweetId(), event.getDelta(), Integer::sum);
+                }
+            }
+            if (page.size() < TAIL_PAGE) {
+                return;
+            }
+            cursor = page.get(page.size() - 1).getId();
+        }
+    }
+}
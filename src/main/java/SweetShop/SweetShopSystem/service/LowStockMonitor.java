@@ -0,0 +1,156 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.dto.LowStockAlertDTO;
+import SweetShop.SweetShopSystem.entity.LowStockThreshold;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.LowStockThresholdRepository;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Low-stock alerts, detected incrementally from catalog changes.
+ *
+ * Every stock write (purchase, checkout, restock, ledger and shard patches)
+ * ends up as a catalog change carrying the quantity before and after, so a
+ * threshold crossing is one map lookup and two comparisons per changed sweet;
+ * the table is never scanned. Thresholds resolve per sweet, then per category
+ * ({@code alerts.low-stock.categories=Barfi:10,Ladoo:20}), then the default.
+ * Alerts go into a bounded in-memory feed; the oldest are dropped when full.
+ */
+@Component
+@RequiredArgsConstructor
+public class LowStockMonitor {
+
+    public static final String LOW = "LOW";
+    public static final String SOLD_OUT = "SOLD_OUT";
+    public static final String RECOVERED = "RECOVERED";
+
+    private final LowStockThresholdRepository thresholdRepository;
+
+    @Value("${alerts.low-stock.default-threshold:5}")
+    private int defaultThreshold;
+
+    @Value("${alerts.low-stock.categories:}")
+    private String categoryThresholds;
+
+    @Value("${alerts.low-stock.queue-size:1000}")
+    private int queueSize;
+
+    private final Map<Long, Integer> sweetThresholds = new ConcurrentHashMap<>();
+    private final Map<String, Integer> categories = new HashMap<>();
+
+    // Guarded by itself
+    private final ArrayDeque<LowStockAlertDTO> alerts = new ArrayDeque<>();
+    private long seq;
+
+    @PostConstruct
+    public void load() {
+        for (String entry : categoryThresholds.split(",")) {
+            int colon = entry.lastIndexOf(':');
+            if (colon > 0) {
+                categories.put(entry.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+                        Integer.parseInt(entry.substring(colon + 1).trim()));
+            }
+        }
+        thresholdRepository.findAll().forEach(t -> sweetThresholds.put(t.getSweetId(), t.getThreshold()));
+    }
+
+    @EventListener
+    public void onCatalogChanged(SweetCatalogChangedEvent event) {
+        if (event.reload()) {
+            // A reload carries no before values, so there is nothing to compare
+            return;
+        }
+        for (SweetCatalogChangedEvent.Change change : event.changes()) {
+            Sweet after = change.after();
+            if (after == null) {
+                continue;
+            }
+            int before = change.before() == null ? Integer.MAX_VALUE : change.before().getQuantity();
+            int threshold = thresholdFor(after);
+            String type = crossing(before, after.getQuantity(), threshold);
+            if (type != null) {
+                publish(after, type, threshold);
+            }
+        }
+    }
+
+    // LOW / SOLD_OUT when the quantity drops to the threshold (or zero), RECOVERED when it climbs back above
+    static String crossing(int before, int after, int threshold) {
+        if (after == before) {
+            return null;
+        }
+        if (after <= 0 && before > 0) {
+            return SOLD_OUT;
+        }
+        if (after <= threshold && before > threshold) {
+            return LOW;
+        }
+        if (after > threshold && before <= threshold) {
+            return RECOVERED;
+        }
+        return null;
+    }
+
+    public int thresholdFor(Sweet sweet) {
+        Integer threshold = sweetThresholds.get(sweet.getId());
+        if (threshold != null) {
+            return threshold;
+        }
+        if (!categories.isEmpty() && sweet.getCategory() != null) {
+            threshold = categories.get(sweet.getCategory().toLowerCase(Locale.ROOT));
+            if (threshold != null) {
+                return threshold;
+            }
+        }
+        return defaultThreshold;
+    }
+
+    public void setThreshold(Long sweetId, int threshold) {
+        if (threshold < 0) {
+            throw new RuntimeException("Threshold must not be negative");
+        }
+        thresholdRepository.save(new LowStockThreshold(sweetId, threshold));
+        sweetThresholds.put(sweetId, threshold);
+    }
+
+    public void clearThreshold(Long sweetId) {
+        thresholdRepository.deleteById(sweetId);
+        sweetThresholds.remove(sweetId);
+    }
+
+    public Map<Long, Integer> thresholds() {
+        return new TreeMap<>(sweetThresholds);
+    }
+
+    // FEED: alerts after a cursor, oldest first
+    public List<LowStockAlertDTO> alerts(Long after) {
+        long cursor = after == null ? 0 : after;
+        synchronized (alerts) {
+            List<LowStockAlertDTO> page = new ArrayList<>();
+            for (LowStockAlertDTO alert : alerts) {
+                if (alert.getSeq() > cursor) {
+                    page.add(alert);
+                }
+            }
+            return page;
+        }
+    }
+
+    private void publish(Sweet sweet, String type, int threshold) {
+        synchronized (alerts) {
+            if (alerts.size() >= queueSize) {
+                alerts.pollFirst();
+            }
+            alerts.addLast(new LowStockAlertDTO(++seq, sweet.getId(), sweet.getName(), sweet.getCategory(),
+                    type, sweet.getQuantity(), threshold, System.currentTimeMillis()));
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.json.JSONObject;
+
+/**
+ * Creates orders with the payment provider. Selected by {@code payment.gateway}:
+ * {@code razorpay} (default) or {@code stub} for offline load tests.
+ */
+public interface PaymentGateway {
+
+    // Request: amount (paise), currency, receipt. Response must carry the order "id".
+    JSONObject createOrder(JSONObject orderRequest) throws Exception;
+
+    // The provider answered and refused this request (a 4xx): not a sign it is down
+    class OrderRejectedException extends RuntimeException {
+        public OrderRejectedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    // The provider failed or could not be reached: the same request may work later
+    class GatewayFailedException extends RuntimeException {
+        public GatewayFailedException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package SweetShop.SweetShopSystem.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps a slow or failing payment provider from tying up request threads.
+ *
+ * Order creation runs on its own virtual threads, so the Tomcat thread is
+ * handed back as soon as the request is accepted. A semaphore caps how many
+ * orders may be in flight at once (the bulkhead); past that, requests are
+ * refused straight away rather than queued. Each gateway call has a deadline
+ * and is interrupted when it passes. After {@code failure-threshold}
+ * consecutive timeouts or provider/transport failures the breaker opens and
+ * orders are refused for {@code open-ms}; then one trial call is let through,
+ * and its outcome closes the breaker or opens it again. A request the
+ * provider rejects ({@link PaymentGateway.OrderRejectedException}) shows it
+ * is up, so it counts as an answer, not a failure.
+ *
+ * Refusals surface as {@link RejectedExecutionException}, deadlines as
+ * {@link TimeoutException}.
+ */
+@Slf4j
+@Component
+public class PaymentGatewayGuard {
+
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("payment-", 0).factory());
+
+    private final Semaphore bulkhead;
+    private final long timeoutMillis;
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private final AtomicInteger failures = new AtomicInteger();
+    // 0 = closed; otherwise calls are refused until this time, then one trial is allowed
+    private final AtomicLong openUntil = new AtomicLong();
+
+    public PaymentGatewayGuard(@Value("${payment.gateway.max-concurrent:64}") int maxConcurrent,
+                               @Value("${payment.gateway.timeout-ms:5000}") long timeoutMillis,
+                               @Value("${payment.gateway.breaker.failure-threshold:5}") int failureThreshold,
+                               @Value("${payment.gateway.breaker.open-ms:10000}") long openMillis) {
+        this.bulkhead = new Semaphore(maxConcurrent);
+        this.timeoutMillis = timeoutMillis;
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    // SUBMIT: runs the task on a virtual thread if the breaker and bulkhead allow it
+    public <T> CompletableFuture<T> submit(Callable<T> task) {
+        if (!allowRequest()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Payment provider is unavailable, try again shortly"));
+        }
+        if (!bulkhead.tryAcquire()) {
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Too many payment requests, try again shortly"));
+        }
+        CompletableFuture<T> result = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                try {
+                    T value;
+                    try {
+                        value = task.call();
+                    } finally {
+                        // Free the slot before anyone waiting on the result runs
+                        bulkhead.release();
+                    }
+                    result.complete(value);
+                } catch (Throwable e) {
+                    result.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            bulkhead.release();
+            return CompletableFuture.failedFuture(e);
+        }
+        return result;
+    }
+
+    // CALL: one gateway round trip under the deadline; outcome feeds the breaker
+    public <T> T call(Callable<T> gatewayCall) throws Exception {
+        Future<T> future = executor.submit(gatewayCall);
+        try {
+            T value = future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+            onSuccess();
+            return value;
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            onFailure();
+            throw new TimeoutException("Payment provider did not answer within " + timeoutMillis + " ms");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof PaymentGateway.OrderRejectedException) {
+                onSuccess();
+            } else {
+                onFailure();
+            }
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw e;
+        }
+    }
+
+    public boolean isOpen() {
+        return openUntil.get() != 0;
+    }
+
+    public int available() {
+        return bulkhead.availablePermits();
+    }
+
+    private boolean allowRequest() {
+        long until = openUntil.get();
+        if (until == 0) {
+            return true;
+        }
+        long now = System.currentTimeMillis();
+        // Past the open window: the first caller to claim it becomes the trial call
+        return now >= until && openUntil.compareAndSet(until, now + openMillis);
+    }
+
+    private void onSuccess() {
+        failures.set(0);
+        if (openUntil.getAndSet(0) != 0) {
+            log.info("Payment gateway circuit closed");
+        }
+    }
+
+    private void onFailure() {
+        if (failures.incrementAndGet() >= failureThreshold) {
+            long until = System.currentTimeMillis() + openMillis;
+            if (openUntil.getAndSet(until) == 0) {
+                log.warn("Payment gateway circuit opened after {} consecutive failures", failures.get());
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+}
@@ -2,71 +2,128 @@ package SweetShop.SweetShopSystem.service;
 
 import SweetShop.SweetShopSystem.dto.PaymentDTO;
 import SweetShop.SweetShopSystem.entity.Payment;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
 import SweetShop.SweetShopSystem.repository.PaymentRepository;
-import com.razorpay.Order;
-import com.razorpay.RazorpayClient;
 import org.json.JSONObject;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeoutException;
+
 @Service
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
-
-    @Value("${razorpay.key}")
-    private String razorpayKey;
-
-    @Value("${razorpay.secret}")
-    private String razorpaySecret;
-
-    public PaymentService(PaymentRepository paymentRepository) {
+    private final StockReservationService stockReservationService;
+    private final PaymentGateway paymentGateway;
+    private final PaymentGatewayGuard paymentGatewayGuard;
+    private final PaymentSignatureVerifier paymentSignatureVerifier;
+
+    public PaymentService(PaymentRepository paymentRepository,
+                          StockReservationService stockReservationService,
+                          PaymentGateway paymentGateway,
+                          PaymentGatewayGuard paymentGatewayGuard,
+                          PaymentSignatureVerifier paymentSignatureVerifier) {
         this.paymentRepository = paymentRepository;
+        this.stockReservationService = stockReservationService;
+        this.paymentGateway = paymentGateway;
+        this.paymentGatewayGuard = paymentGatewayGuard;
+        this.paymentSignatureVerifier = paymentSignatureVerifier;
+    }
+
+    // CREATE ORDER ASYNC: runs off the request thread, behind the bulkhead and breaker
+    public CompletableFuture<JSONObject> createOrderAsync(PaymentDTO dto) {
+        return paymentGatewayGuard.submit(() -> createOrder(dto));
     }
 
     // CREATE ORDER
     public JSONObject createOrder(PaymentDTO dto) throws Exception {
 
-        RazorpayClient client = new RazorpayClient(razorpayKey, razorpaySecret);
-
-        JSONObject orderRequest = new JSONObject();
-        orderRequest.put("amount", (int)(dto.getAmount() * 100)); // Razorpay uses paise
-        orderRequest.put("currency", dto.getCurrency());
-        orderRequest.put("receipt", "txn_" + System.currentTimeMillis());
-
-        Order order = client.orders.create(orderRequest);
-
-        // Save order in DB
+        // Stands in for the order id until the gateway answers, and is the gateway receipt
+        String receipt = "txn_" + UUID.randomUUID().toString().replace("-", "");
         Payment payment = Payment.builder()
-                .razorpayOrderId(order.get("id"))
+                .razorpayOrderId(receipt)
                 .sweetId(dto.getSweetId())
                 .quantity(dto.getQuantity())
                 .amount(dto.getAmount())
-                .status("CREATED")
+                .status(PaymentStatus.CREATED)
+                .stockReserved(dto.getSweetId() != null)
                 .build();
 
-        paymentRepository.save(payment);
+        // Hold the stock first so it can't sell out while the user pays. The row is
+        // committed with the hold, so a crash before the gateway answers is recovered.
+        StockReservationService.Hold hold = null;
+        if (dto.getSweetId() != null) {
+            hold = stockReservationService.hold(dto.getSweetId(), dto.getQuantity(), payment);
+        } else {
+            paymentRepository.save(payment);
+        }
 
-        return order.toJson();
-    }
+        JSONObject order;
+        try {
+            JSONObject orderRequest = new JSONObject();
+            orderRequest.put("amount", (int)(dto.getAmount() * 100)); // Razorpay uses paise
+            orderRequest.put("currency", dto.getCurrency());
+            orderRequest.put("receipt", receipt);
 
-    // VERIFY PAYMENT SIGNATURE
-    public String verifyPayment(String razorpayOrderId, String paymentId, String signature) {
+            order = callGateway(orderRequest);
+
+            if (paymentRepository.assignOrderId(receipt, order.getString("id")) == 0) {
+                throw new RuntimeException("Order expired");
+            }
+        } catch (Exception e) {
+            if (hold != null) {
+                stockReservationService.abandon(hold, receipt);
+            } else {
+                try {
+                    paymentRepository.expireIfUnpaid(receipt);
+                } catch (RuntimeException suppressed) {
+                    e.addSuppressed(suppressed);
+                }
+            }
+            throw e;
+        }
+
+        if (hold != null) {
+            stockReservationService.activate(hold, order.getString("id"), payment.getCreatedAt());
+        }
+        return order;
+    }
 
+    // Rejections and deadlines pass through; any other failure is the provider's, worth a retry
+    private JSONObject callGateway(JSONObject orderRequest) throws Exception {
         try {
-            Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId);
-            if (payment == null) return "Invalid Order ID";
+            return paymentGatewayGuard.call(() -> paymentGateway.createOrder(orderRequest));
+        } catch (PaymentGateway.OrderRejectedException | TimeoutException | InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new PaymentGateway.GatewayFailedException("Payment provider failed: " + e.getMessage(), e);
+        }
+    }
 
-            // No complex signature validation here — Razorpay handles it on frontend
-            payment.setRazorpayPaymentId(paymentId);
-            payment.setRazorpaySignature(signature);
-            payment.setStatus("PAID");
+    // VERIFY PAYMENT SIGNATURE (database failures propagate, so they are not mistaken for an answer)
+    public String verifyPayment(String razorpayOrderId, String paymentId, String signature) {
 
-            paymentRepository.save(payment);
+        // Checked before anything else, so a forged call changes nothing
+        if (!paymentSignatureVerifier.verify(razorpayOrderId, paymentId, signature)) {
+            return "Invalid Signature";
+        }
 
+        // CREATED -> PAID in one conditional UPDATE. If the hold expired first, its
+        // expiry already moved the order to FAILED and this matches nothing.
+        if (paymentRepository.markPaid(razorpayOrderId, paymentId, signature) == 1) {
+            // Only now stop the expiry timer; an expiry racing in finds the order PAID
+            stockReservationService.confirm(razorpayOrderId);
+            return "Payment Verified";
+        }
+
+        // Not CREATED: only now read the row to say why
+        Payment payment = paymentRepository.findByRazorpayOrderId(razorpayOrderId);
+        if (payment == null) return "Invalid Order ID";
+        if (payment.getStatus() == PaymentStatus.PAID && paymentId.equals(payment.getRazorpayPaymentId())) {
             return "Payment Verified";
-        } catch (Exception e) {
-            return "Verification Failed";
         }
+        return "Order expired";
     }
 }
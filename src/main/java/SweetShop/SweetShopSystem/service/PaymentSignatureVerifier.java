@@ -0,0 +1,118 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+
+/**
+ * Checks Razorpay's checkout signature: hex HMAC-SHA256 of
+ * {@code orderId + "|" + paymentId}, keyed with the API secret. Webhook
+ * payloads are signed the same way over the raw body with the webhook secret.
+ *
+ * Each thread keeps a Mac already initialised with the key plus input and
+ * output buffers, so a check copies the ids into the Mac in one update and
+ * compares the digest against the hex string in place, without allocating.
+ * The comparison always looks at every byte.
+ */
+@Component
+public class PaymentSignatureVerifier {
+
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final int DIGEST_LENGTH = 32;
+
+    private final ThreadLocal<Hmac> hmac;
+
+    public PaymentSignatureVerifier(@Value("${razorpay.secret}") String secret) {
+        SecretKeySpec key = new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), ALGORITHM);
+        this.hmac = ThreadLocal.withInitial(() -> new Hmac(key));
+    }
+
+    public boolean verify(String orderId, String paymentId, String signature) {
+        if (orderId == null || paymentId == null || signature == null
+                || signature.length() != DIGEST_LENGTH * 2) {
+            return false;
+        }
+        Hmac h = hmac.get();
+        if (!h.update(orderId, paymentId)) {
+            return false;
+        }
+        return h.matches(signature);
+    }
+
+    // Raw payload, e.g. a webhook body
+    public boolean verify(byte[] payload, String signature) {
+        if (payload == null || signature == null || signature.length() != DIGEST_LENGTH * 2) {
+            return false;
+        }
+        Hmac h = hmac.get();
+        h.mac.update(payload);
+        return h.matches(signature);
+    }
+
+    private static final class Hmac {
+
+        private final Mac mac;
+        private final byte[] digest = new byte[DIGEST_LENGTH];
+        private byte[] input = new byte[64];
+
+        Hmac(SecretKeySpec key) {
+            try {
+                mac = Mac.getInstance(ALGORITHM);
+                mac.init(key);
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException("HmacSHA256 is not available", e);
+            }
+        }
+
+        // Ids are ASCII; anything else cannot match a Razorpay id. One Mac.update per
+        // check: each call goes through the provider, so byte-at-a-time costs more than the hash
+        boolean update(String orderId, String paymentId) {
+            int length = orderId.length() + 1 + paymentId.length();
+            if (input.length < length) {
+                input = new byte[length];
+            }
+            int end = ascii(orderId, 0);
+            if (end < 0) {
+                return false;
+            }
+            input[end] = '|';
+            if (ascii(paymentId, end + 1) < 0) {
+                return false;
+            }
+            mac.update(input, 0, length);
+            return true;
+        }
+
+        private int ascii(String value, int offset) {
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c >= 0x80) {
+                    return -1;
+                }
+                input[offset + i] = (byte) c;
+            }
+            return offset + value.length();
+        }
+
+        boolean matches(String hex) {
+            try {
+                mac.doFinal(digest, 0);   // also resets the Mac for the next call
+            } catch (GeneralSecurityException e) {
+                throw new IllegalStateException(e);
+            }
+            int diff = 0;
+            for (int i = 0; i < DIGEST_LENGTH; i++) {
+                int hi = Character.digit(hex.charAt(2 * i), 16);
+                int lo = Character.digit(hex.charAt(2 * i + 1), 16);
+                // A non-hex character makes the digit -1, which can never match a byte
+                diff |= ((hi << 4) | (lo & 0xF)) ^ (digest[i] & 0xFF);
+                diff |= (hi | lo) & 0x80000000;
+            }
+            return diff == 0;
+        }
+    }
+}
@@ -0,0 +1,260 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.WebhookEvent;
+import SweetShop.SweetShopSystem.repository.PaymentRepository;
+import SweetShop.SweetShopSystem.repository.WebhookEventRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONException;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ingests Razorpay webhooks: {@code payment.captured} / {@code order.paid}
+ * move an order CREATED -> PAID. Everything else, including
+ * {@code payment.failed}, is only recorded: a failed attempt doesn't end the
+ * order, since the customer may pay it with another attempt, so the order
+ * stays CREATED until it is paid or its reservation expires.
+ *
+ * The request thread only checks the signature over the raw body, drops
+ * events it has seen recently and puts the rest on a bounded queue; a full
+ * queue is answered with 503 so the provider retries later. One consumer
+ * thread drains the queue in batches and applies each batch in a single
+ * transaction: already-stored event ids are skipped, statuses change through
+ * the same conditional UPDATEs as verify-payment, and every event is stored
+ * in {@code webhook_event}. If a batch fails, its events are retried one by
+ * one so a single bad event can't hold back the others. The stock hold of a
+ * paid order is confirmed after the commit.
+ *
+ * Events still queued when the process dies are lost after having been
+ * acknowledged; the reservation expiry and verify-payment still settle them.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class PaymentWebhookService {
+
+    public enum Result { ACCEPTED, DUPLICATE, INVALID_SIGNATURE, MALFORMED }
+
+    private record Incoming(String eventId, String type, String orderId, String paymentId, long receivedAt) {
+    }
+
+    private final PaymentRepository paymentRepository;
+    private final WebhookEventRepository webhookEventRepository;
+    private final StockReservationService stockReservationService;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${razorpay.webhook-secret:}")
+    private String webhookSecret;
+
+    @Value("${payment.webhook.queue-size:10000}")
+    private int queueSize;
+
+    @Value("${payment.webhook.batch-size:200}")
+    private int batchSize;
+
+    @Value("${payment.webhook.dedupe-size:100000}")
+    private int dedupeSize;
+
+    private PaymentSignatureVerifier verifier;
+    private BlockingQueue<Incoming> queue;
+    private Set<String> recent;
+    private Thread consumer;
+    private volatile boolean running;
+
+    @PostConstruct
+    public void start() {
+        if (webhookSecret.isBlank()) {
+            log.warn("razorpay.webhook-secret is not set; payment webhooks will be refused");
+        } else {
+            verifier = new PaymentSignatureVerifier(webhookSecret);
+        }
+        queue = new ArrayBlockingQueue<>(queueSize);
+        // Recently accepted event ids, oldest evicted first; guarded by itself
+        recent = Collections.newSetFromMap(new LinkedHashMap<>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Boolean> eldest) {
+                return size() > dedupeSize;
+            }
+        });
+        running = true;
+        consumer = Thread.ofVirtual().name("payment-webhooks").start(this::consume);
+    }
+
+    // ACCEPT: verify, dedupe and enqueue; throws RejectedExecutionException when the queue is full
+    public Result accept(byte[] body, String signature, String eventIdHeader) {
+        if (verifier == null || !verifier.verify(body, signature)) {
+            return Result.INVALID_SIGNATURE;
+        }
+
+        Incoming event;
+        try {
+            event = parse(new JSONObject(new String(body, StandardCharsets.UTF_8)), eventIdHeader);
+        } catch (JSONException e) {
+            return Result.MALFORMED;
+        }
+        if (event == null) {
+            return Result.MALFORMED;
+        }
+
+        synchronized (recent) {
+            if (!recent.add(event.eventId())) {
+                return Result.DUPLICATE;
+            }
+        }
+        if (!queue.offer(event)) {
+            forget(event);
+            throw new RejectedExecutionException("Webhook queue is full");
+        }
+        return Result.ACCEPTED;
+    }
+
+    public int pending() {
+        return queue.size();
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        consumer.join(5_000);   // finishes the batch in hand, then sees the flag
+        // Apply what was already acknowledged while the database is still there
+        List<Incoming> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (int from = 0; from < rest.size(); from += batchSize) {
+            process(rest.subList(from, Math.min(rest.size(), from + batchSize)));
+        }
+    }
+
+    private static Incoming parse(JSONObject json, String eventIdHeader) {
+        String type = json.optString("event", null);
+        JSONObject payload = json.optJSONObject("payload");
+        if (type == null || payload == null) {
+            return null;
+        }
+        JSONObject payment = entity(payload, "payment");
+        JSONObject order = entity(payload, "order");
+        String paymentId = payment == null ? null : payment.optString("id", null);
+        String orderId = payment != null ? payment.optString("order_id", null)
+                : order != null ? order.optString("id", null) : null;
+
+        // Razorpay sends the id as a header; fall back to what identifies the event in the body
+        String eventId = eventIdHeader != null && !eventIdHeader.isBlank() ? eventIdHeader
+                : paymentId != null ? type + ":" + paymentId
+                : orderId != null ? type + ":" + orderId : null;
+        if (eventId == null || eventId.length() > 64) {
+            return null;
+        }
+        return new Incoming(eventId, type, orderId, paymentId, System.currentTimeMillis());
+    }
+
+    private static JSONObject entity(JSONObject payload, String name) {
+        JSONObject wrapper = payload.optJSONObject(name);
+        return wrapper == null ? null : wrapper.optJSONObject("entity");
+    }
+
+    // Runs on the consumer thread
+    private void consume() {
+        List<Incoming> batch = new ArrayList<>(batchSize);
+        while (running) {
+            try {
+                Incoming first = queue.poll(500, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(batch, batchSize - 1);
+            process(batch);
+            batch.clear();
+        }
+    }
+
+    private void process(List<Incoming> batch) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        try {
+            settle(tx.execute(status -> apply(batch)));
+        } catch (RuntimeException e) {
+            log.warn("Webhook batch of {} failed ({}), applying events one by one", batch.size(), e.getMessage());
+            for (Incoming event : batch) {
+                try {
+                    settle(tx.execute(status -> apply(List.of(event))));
+                } catch (RuntimeException ex) {
+                    log.error("Could not apply webhook event {}: {}", event.eventId(), ex.getMessage());
+                    forget(event);   // let a provider retry through
+                }
+            }
+        }
+    }
+
+    // One transaction: skip stored events, apply status changes, store the events
+    // Returns the orders this batch moved to PAID
+    private List<String> apply(List<Incoming> batch) {
+        Set<String> ids = new HashSet<>();
+        for (Incoming event : batch) {
+            ids.add(event.eventId());
+        }
+        Set<String> stored = new HashSet<>();
+        webhookEventRepository.findAllById(ids).forEach(e -> stored.add(e.getEventId()));
+
+        List<String> paid = new ArrayList<>();
+        List<WebhookEvent> records = new ArrayList<>();
+        for (Incoming event : batch) {
+            if (!stored.add(event.eventId())) {
+                continue;
+            }
+            boolean applied = false;
+            if (paysOrder(event.type()) && event.orderId() != null) {
+                // No prior read: matches nothing for unknown or already settled orders
+                applied = paymentRepository.markPaid(event.orderId(), event.paymentId(), null) == 1;
+                if (applied) {
+                    paid.add(event.orderId());
+                }
+            }
+            records.add(WebhookEvent.builder()
+                    .eventId(event.eventId())
+                    .type(event.type())
+                    .razorpayOrderId(event.orderId())
+                    .applied(applied)
+                    .receivedAt(event.receivedAt())
+                    .build());
+        }
+        webhookEventRepository.saveAll(records);
+        return paid;
+    }
+
+    private static boolean paysOrder(String type) {
+        return type.equals("payment.captured") || type.equals("order.paid");
+    }
+
+    // After commit: the payment won, so its stock hold becomes a sale
+    private void settle(List<String> paid) {
+        for (String orderId : paid) {
+            try {
+                stockReservationService.confirm(orderId);
+            } catch (RuntimeException e) {
+                log.error("Could not confirm stock for order {}: {}", orderId, e.getMessage());
+            }
+        }
+    }
+
+    private void forget(Incoming event) {
+        synchronized (recent) {
+            recent.remove(event.eventId());
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package SweetShop.SweetShopSystem.service;
+
+import com.razorpay.RazorpayClient;
+import com.razorpay.RazorpayException;
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Razorpay orders through one long-lived {@link RazorpayClient}.
+ *
+ * The SDK builds its OkHttp client (connection pool, keep-alive, timeouts)
+ * when a RazorpayClient is constructed and exposes no way to tune it, so the
+ * win here is constructing it once: connections to the API stay pooled
+ * across orders instead of a new pool and TLS handshake per order. Per-call
+ * deadlines are enforced by the caller. {@code payment.gateway.razorpay.shared-client=false}
+ * restores a client per order, for comparing the two under load.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "razorpay", matchIfMissing = true)
+public class RazorpayPaymentGateway implements PaymentGateway {
+
+    private static final String BAD_REQUEST = "BAD_REQUEST_ERROR:";
+
+    private final String key;
+    private final String secret;
+    private final boolean sharedClient;
+    private final RazorpayClient client;
+
+    public RazorpayPaymentGateway(@Value("${razorpay.key}") String key,
+                                  @Value("${razorpay.secret}") String secret,
+                                  @Value("${payment.gateway.razorpay.shared-client:true}") boolean sharedClient)
+            throws RazorpayException {
+        this.key = key;
+        this.secret = secret;
+        this.sharedClient = sharedClient;
+        this.client = new RazorpayClient(key, secret);
+        if (!sharedClient) {
+            log.warn("Razorpay client is rebuilt for every order (payment.gateway.razorpay.shared-client=false)");
+        }
+    }
+
+    @Override
+    public JSONObject createOrder(JSONObject orderRequest) throws Exception {
+        RazorpayClient razorpay = sharedClient ? client : new RazorpayClient(key, secret);
+        try {
+            return razorpay.orders.create(orderRequest).toJson();
+        } catch (RazorpayException e) {
+            // The SDK reports API errors as "<code>:<description>"; 4xx responses carry this code
+            if (e.getMessage() != null && e.getMessage().startsWith(BAD_REQUEST)) {
+                throw new OrderRejectedException(e.getMessage(), e);
+            }
+            throw e;
+        }
+    }
+}
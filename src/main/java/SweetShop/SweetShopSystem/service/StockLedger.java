@@ -0,0 +1,396 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.entity.StockLedgerCheckpoint;
+import SweetShop.SweetShopSystem.repository.StockLedgerCheckpointRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Optional in-memory stock ledger for flash sales ({@code sweets.stock-ledger.enabled}).
+ *
+ * Each sweet's stock lives in its own {@link AtomicInteger}; purchases are
+ * admitted or rejected with a CAS loop and never wait on the DB row lock.
+ * Every accepted change is appended to a local journal (fsync'd before the
+ * purchase is acknowledged) and collected per sweet; a scheduled flusher
+ * writes the net deltas as one JDBC batch together with the journal sequence
+ * it covers, so replay after a crash applies exactly the unflushed tail.
+ *
+ * The journal is a series of segment files ({@code <journal>.<seq>}). The
+ * active one is sealed once it passes {@code segment-bytes}, and sealed
+ * segments are deleted as soon as a checkpoint covers their last entry, so
+ * the journal stays bounded even when writes never pause for a flush.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockLedger {
+
+    private static final int RECORD_BYTES = Long.BYTES + Long.BYTES + Integer.BYTES;
+
+    private final SweetRepository sweetRepository;
+    private final SweetBatchRepository sweetBatchRepository;
+    private final StockLedgerCheckpointRepository checkpointRepository;
+    private final PlatformTransactionManager transactionManager;
+    private final InventoryJournal inventoryJournal;
+
+    @Value("${sweets.stock-ledger.enabled:false}")
+    private boolean enabled;
+
+    @Value("${sweets.stock-ledger.journal:./data/stock-ledger.journal}")
+    private String journalPath;
+
+    @Value("${sweets.stock-ledger.fsync:true}")
+    private boolean fsync;
+
+    @Value("${sweets.stock-ledger.segment-bytes:1048576}")
+    private long segmentBytes;
+
+    private final Map<Long, AtomicInteger> stock = new ConcurrentHashMap<>();
+
+    // Guarded by journalLock: net quantity taken per sweet since the last flush
+    private final Object journalLock = new Object();
+    private Map<Long, Integer> pending = new HashMap<>();
+    private Map<Long, Integer> flushing = Map.of();
+    private long seq;
+    private FileChannel journal;
+    private Path currentSegment;
+    private final List<Segment> sealed = new ArrayList<>();
+
+    // Read side held while appending and syncing; write side while closing sealed segments
+    private final ReentrantReadWriteLock segmentLock = new ReentrantReadWriteLock();
+
+    // Held while a batch is written to the DB, and while a counter is seeded
+    private final Object flushLock = new Object();
+
+    public boolean enabled() {
+        return enabled;
+    }
+
+    @PostConstruct
+    public void start() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        Path path = Path.of(journalPath);
+        if (path.getParent() != null) {
+            Files.createDirectories(path.getParent());
+        }
+        replay(path);
+        currentSegment = segmentPath(seq + 1);
+        journal = openSegment(currentSegment);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (journal != null) {
+            flush();
+            journal.close();
+            for (Segment segment : sealed) {
+                segment.channel().close();
+            }
+        }
+    }
+
+    // PURCHASE: returns the remaining stock
+    public int purchase(Long sweetId, int quantity) {
+        AtomicInteger counter = counter(sweetId);
+        int remaining;
+        while (true) {
+            int current = counter.get();
+            if (current < quantity) {
+                throw new RuntimeException("Not enough stock");
+            }
+            if (counter.compareAndSet(current, current - quantity)) {
+                remaining = current - quantity;
+                break;
+            }
+        }
+        try {
+            record(sweetId, quantity);
+        } catch (RuntimeException e) {
+            // Not durable, so not sold
+            counter.addAndGet(quantity);
+            throw e;
+        }
+        return remaining;
+    }
+
+    // REFUND: gives previously purchased stock back
+    public int refund(Long sweetId, int quantity) {
+        int available = counter(sweetId).addAndGet(quantity);
+        record(sweetId, -quantity);
+        return available;
+    }
+
+    public int available(Long sweetId) {
+        return counter(sweetId).get();
+    }
+
+    /**
+     * Flushes pending deltas and forgets the counter, so the next purchase
+     * re-seeds from the DB. Call around any direct write to a sweet's stock.
+     */
+    public void evict(Long sweetId) {
+        if (!enabled) {
+            return;
+        }
+        flush();
+        synchronized (flushLock) {
+            stock.remove(sweetId);
+        }
+    }
+
+    // WRITE-BEHIND: net deltas of everything journaled so far, one batch
+    @Scheduled(fixedDelayString = "${sweets.stock-ledger.flush-interval-ms:20}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (flushLock) {
+            Map<Long, Integer> batch;
+            long upTo;
+            synchronized (journalLock) {
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                flushing = batch;
+                pending = new HashMap<>();
+                upTo = seq;
+            }
+
+            try {
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    sweetBatchRepository.subtractStock(new TreeMap<>(batch));
+                    recordHistory(batch);
+                    checkpointRepository.save(new StockLedgerCheckpoint(StockLedgerCheckpoint.SINGLETON_ID, upTo));
+                });
+            } catch (RuntimeException e) {
+                log.warn("Stock ledger flush failed, will retry: {}", e.getMessage());
+                synchronized (journalLock) {
+                    batch.forEach((id, quantity) -> pending.merge(id, quantity, Integer::sum));
+                    flushing = Map.of();
+                }
+                return;
+            }
+
+            List<Segment> covered = new ArrayList<>();
+            synchronized (journalLock) {
+                flushing = Map.of();
+                if (seq == upTo) {
+                    // Everything journaled is now in the DB
+                    truncateJournal();
+                }
+                sealed.removeIf(segment -> segment.lastSeq() <= upTo && covered.add(segment));
+            }
+            deleteSegments(covered);
+        }
+    }
+
+    private AtomicInteger counter(Long sweetId) {
+        AtomicInteger counter = stock.get(sweetId);
+        if (counter != null) {
+            return counter;
+        }
+        synchronized (flushLock) {
+            return stock.computeIfAbsent(sweetId, id -> new AtomicInteger(seed(id)));
+        }
+    }
+
+    // DB quantity minus what has been taken in memory but not written yet
+    private int seed(Long sweetId) {
+        Sweet sweet = sweetRepository.findById(sweetId)
+                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        synchronized (journalLock) {
+            return sweet.getQuantity()
+                    - pending.getOrDefault(sweetId, 0)
+                    - flushing.getOrDefault(sweetId, 0);
+        }
+    }
+
+    private void record(Long sweetId, int quantity) {
+        ByteBuffer entry = ByteBuffer.allocate(RECORD_BYTES);
+        FileChannel written;
+        segmentLock.readLock().lock();
+        try {
+            synchronized (journalLock) {
+                entry.putLong(++seq).putLong(sweetId).putInt(quantity).flip();
+                written = journal;
+                try {
+                    while (entry.hasRemaining()) {
+                        written.write(entry);
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Stock journal write failed", e);
+                }
+                pending.merge(sweetId, quantity, Integer::sum);
+                rotateIfFull();
+            }
+            if (fsync) {
+                try {
+                    // Concurrent forces overlap, so this is a natural group commit
+                    written.force(false);
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Stock journal sync failed", e);
+                }
+            }
+        } finally {
+            segmentLock.readLock().unlock();
+        }
+    }
+
+    // Net deltas go to the inventory history in the same transaction
+    private void recordHistory(Map<Long, Integer> taken) {
+        List<InventoryEvent> events = new ArrayList<>(taken.size());
+        taken.forEach((id, quantity) -> {
+            if (quantity != 0) {
+                events.add(InventoryJournal.event(id, -quantity, null, InventoryEventType.LEDGER_FLUSH));
+            }
+        });
+        inventoryJournal.recordAll(events);
+    }
+
+    private void truncateJournal() {
+        try {
+            journal.truncate(0);
+        } catch (IOException e) {
+            log.warn("Could not truncate stock journal: {}", e.getMessage());
+        }
+    }
+
+    // Called under journalLock; the sealed segment stays open until a checkpoint covers it
+    private void rotateIfFull() {
+        try {
+            if (journal.position() < segmentBytes) {
+                return;
+            }
+            Path nextSegment = segmentPath(seq + 1);
+            FileChannel next = openSegment(nextSegment);
+            sealed.add(new Segment(currentSegment, journal, seq));
+            journal = next;
+            currentSegment = nextSegment;
+        } catch (IOException e) {
+            log.warn("Could not rotate stock journal, appending to the current segment: {}", e.getMessage());
+        }
+    }
+
+    // Named after the sequence it starts from
+    private Path segmentPath(long firstSeq) {
+        return Path.of(journalPath + "." + firstSeq);
+    }
+
+    private static FileChannel openSegment(Path segment) throws IOException {
+        return FileChannel.open(segment, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    // Waits for appends still syncing to these segments before closing them
+    private void deleteSegments(List<Segment> segments) {
+        if (segments.isEmpty()) {
+            return;
+        }
+        segmentLock.writeLock().lock();
+        try {
+            for (Segment segment : segments) {
+                try {
+                    segment.channel().close();
+                    Files.deleteIfExists(segment.path());
+                } catch (IOException e) {
+                    log.warn("Could not delete stock journal segment {}: {}", segment.path(), e.getMessage());
+                }
+            }
+        } finally {
+            segmentLock.writeLock().unlock();
+        }
+    }
+
+    // The plain journal file is what older versions wrote, before segments
+    private List<Path> journalFiles(Path path) throws IOException {
+        Path dir = path.toAbsolutePath().getParent();
+        String prefix = path.getFileName() + ".";
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> {
+                String name = file.getFileName().toString();
+                return name.equals(path.getFileName().toString())
+                        || name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d+");
+            }).toList();
+        }
+    }
+
+    // Re-applies journal entries newer than the DB checkpoint
+    private void replay(Path path) throws IOException {
+        long applied = checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID)
+                .map(StockLedgerCheckpoint::getLastSeq)
+                .orElse(0L);
+        seq = applied;
+        List<Path> files = journalFiles(path);
+
+        // Deltas merge per sweet, so segments can be read in any order
+        TreeMap<Long, Integer> unflushed = new TreeMap<>();
+        ByteBuffer records = ByteBuffer.allocate(RECORD_BYTES * 4096);
+        for (Path file : files) {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                records.clear();
+                while (channel.read(records) >= 0) {
+                    records.flip();
+                    while (records.remaining() >= RECORD_BYTES) {
+                        long entrySeq = records.getLong();
+                        long sweetId = records.getLong();
+                        int quantity = records.getInt();
+                        if (entrySeq > applied) {
+                            unflushed.merge(sweetId, quantity, Integer::sum);
+                        }
+                        seq = Math.max(seq, entrySeq);
+                    }
+                    records.compact();
+                }
+                // Whatever is left is a torn record at the tail: never acknowledged, skipped
+            }
+        }
+
+        if (!unflushed.isEmpty()) {
+            long upTo = seq;
+            new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                sweetBatchRepository.subtractStock(unflushed);
+                recordHistory(unflushed);
+                checkpointRepository.save(new StockLedgerCheckpoint(StockLedgerCheckpoint.SINGLETON_ID, upTo));
+            });
+            log.info("Replayed {} unflushed stock ledger entries up to seq {}", unflushed.size(), upTo);
+        }
+        for (Path file : files) {
+            Files.delete(file);
+        }
+    }
+
+    private record Segment(Path path, FileChannel channel, long lastSeq) {
+    }
+}
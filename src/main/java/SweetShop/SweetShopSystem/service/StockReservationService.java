@@ -0,0 +1,163 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Payment;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
+import SweetShop.SweetShopSystem.repository.PaymentRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds stock while a payment order is open.
+ *
+ * {@link #hold} takes the stock out of the sellable quantity and saves the
+ * order's payment row in the same transaction, before the gateway order is
+ * created, so a crash at any point leaves a CREATED row that {@link #recover}
+ * re-arms. {@link #activate} arms an expiry timer on a hierarchical timing
+ * wheel driven by one scheduled tick. A hold ends either
+ * by {@link #confirm} (payment verified, the stock stays sold) or by expiry /
+ * {@link #release} (stock goes back). Expiry only gives the stock back if its
+ * conditional CREATED -> FAILED update wins over the payment's CREATED -> PAID,
+ * so a late payment and an expiry can't both apply.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StockReservationService {
+
+    private final SweetService sweetService;
+    private final PaymentRepository paymentRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${payment.reservation.ttl-ms:900000}")
+    private long ttlMillis;
+
+    @Value("${payment.reservation.tick-ms:100}")
+    private long tickMillis;
+
+    private final Map<String, Hold> active = new ConcurrentHashMap<>();
+    private volatile TimingWheel<String> wheel;
+
+    public static final class Hold {
+        private final Long sweetId;
+        private final int quantity;
+        private volatile TimingWheel.Timeout<String> timeout;
+
+        private Hold(Long sweetId, int quantity) {
+            this.sweetId = sweetId;
+            this.quantity = quantity;
+        }
+    }
+
+    // Re-arm timers for orders that were still open when the app stopped
+    @EventListener(ApplicationReadyEvent.class)
+    public void recover() {
+        for (Payment payment : paymentRepository.findByStatusAndStockReservedTrue(PaymentStatus.CREATED)) {
+            Hold hold = new Hold(payment.getSweetId(), payment.getQuantity());
+            long createdAt = payment.getCreatedAt() != null ? payment.getCreatedAt() : System.currentTimeMillis();
+            activate(hold, payment.getRazorpayOrderId(), createdAt);
+        }
+        log.info("Re-armed {} stock reservations", active.size());
+    }
+
+    // HOLD STOCK for a new order, committed with its payment row (throws if there isn't enough)
+    public Hold hold(Long sweetId, int quantity, Payment payment) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            sweetService.purchaseSweet(sweetId, quantity);
+            paymentRepository.save(payment);
+        });
+        return new Hold(sweetId, quantity);
+    }
+
+    // START THE EXPIRY CLOCK once the order id is known
+    public void activate(Hold hold, String orderId, long createdAt) {
+        active.put(orderId, hold);
+        hold.timeout = wheel().schedule(orderId, createdAt + ttlMillis);
+    }
+
+    // PAYMENT VERIFIED: the hold becomes a sale. False if it already expired.
+    public boolean confirm(String orderId) {
+        Hold hold = active.remove(orderId);
+        if (hold == null) {
+            return false;
+        }
+        cancel(hold);
+        return true;
+    }
+
+    // ORDER ABANDONED: give the stock back
+    public void release(Hold hold) {
+        sweetService.releaseStock(hold.sweetId, hold.quantity);
+    }
+
+    // ORDER NEVER REACHED THE USER: expire it on the next tick, with the usual retries
+    public void abandon(Hold hold, String orderId) {
+        activate(hold, orderId, System.currentTimeMillis() - ttlMillis);
+    }
+
+    public void release(String orderId) {
+        Hold hold = active.remove(orderId);
+        if (hold != null) {
+            cancel(hold);
+            release(hold);
+        }
+    }
+
+    public int activeCount() {
+        return active.size();
+    }
+
+    @Scheduled(fixedRateString = "${payment.reservation.tick-ms:100}")
+    public void tick() {
+        for (String orderId : wheel().advance(System.currentTimeMillis())) {
+            Hold hold = active.remove(orderId);
+            if (hold == null) {
+                continue;
+            }
+            try {
+                // Only give stock back if the order really is still unpaid. Both commit
+                // together: if the release fails the order stays CREATED and is retried.
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    if (paymentRepository.expireIfUnpaid(orderId) == 1) {
+                        release(hold);
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.warn("Could not expire reservation for order {}: {}", orderId, e.getMessage());
+                active.put(orderId, hold);
+                hold.timeout = wheel().schedule(orderId, System.currentTimeMillis() + tickMillis * 10);
+            }
+        }
+    }
+
+    private static void cancel(Hold hold) {
+        TimingWheel.Timeout<String> timeout = hold.timeout;
+        if (timeout != null) {
+            timeout.cancel();
+        }
+    }
+
+    private TimingWheel<String> wheel() {
+        TimingWheel<String> current = wheel;
+        if (current == null) {
+            synchronized (this) {
+                current = wheel;
+                if (current == null) {
+                    current = new TimingWheel<>(tickMillis, System.currentTimeMillis());
+                    wheel = current;
+                }
+            }
+        }
+        return current;
+    }
+}
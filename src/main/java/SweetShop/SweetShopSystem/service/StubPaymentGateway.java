@@ -0,0 +1,53 @@
+package SweetShop.SweetShopSystem.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process gateway for offline load tests ({@code payment.gateway=stub}).
+ * Answers like Razorpay's order API after a simulated latency, and can be
+ * made to fail a share of calls to exercise error handling.
+ */
+@Slf4j
+@Service
+@ConditionalOnProperty(name = "payment.gateway", havingValue = "stub")
+public class StubPaymentGateway implements PaymentGateway {
+
+    private final AtomicLong orders = new AtomicLong();
+
+    @Value("${payment.gateway.stub.latency-ms:200}")
+    private long latencyMillis;
+
+    @Value("${payment.gateway.stub.jitter-ms:50}")
+    private long jitterMillis;
+
+    @Value("${payment.gateway.stub.failure-rate:0.0}")
+    private double failureRate;
+
+    @Override
+    public JSONObject createOrder(JSONObject orderRequest) throws Exception {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long delay = latencyMillis + (jitterMillis > 0 ? random.nextLong(jitterMillis + 1) : 0);
+        Thread.sleep(delay);
+
+        if (random.nextDouble() < failureRate) {
+            throw new RuntimeException("Stub gateway failure");
+        }
+
+        JSONObject order = new JSONObject();
+        order.put("id", "order_stub_" + orders.incrementAndGet());
+        order.put("entity", "order");
+        order.put("amount", orderRequest.get("amount"));
+        order.put("currency", orderRequest.get("currency"));
+        order.put("receipt", orderRequest.get("receipt"));
+        order.put("status", "created");
+        order.put("created_at", System.currentTimeMillis() / 1000);
+        return order;
+    }
+}
@@ -0,0 +1,312 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * In-memory, immutable snapshot of the sweet catalog.
+ *
+ * Reads are served from the current snapshot without touching the database.
+ * Writes from {@link SweetService} patch the snapshot copy-on-write once the
+ * surrounding transaction (if any) has committed. After-commit callbacks of
+ * concurrent writers can run in any order, so an upsert re-reads its rows
+ * from the database instead of trusting the (possibly older) entity it was
+ * given. Each patch takes a ticket before it reads; a patch is dropped for a
+ * sweet that already holds a later ticket, because that later read saw at
+ * least everything this one did. The read itself happens outside the
+ * catalog lock. The snapshot is only reloaded from the database on startup
+ * or after {@link #invalidate()}. Every reload or patch is announced as a
+ * {@link SweetCatalogChangedEvent}, and {@link #version()} only moves to the
+ * new version once every listener has seen it: whatever is read after
+ * observing a version is at least that new, so ETags and cached searches are
+ * never tagged newer than the data behind them.
+ *
+ * Snapshot entries are shared between all readers and must not be modified;
+ * {@link #getAll()} and {@link #findById(Long)} hand out copies.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetCatalog {
+
+    private final SweetRepository sweetRepository;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Distinguishes versions handed out by different boots of the app
+    private final String epoch = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+    private final AtomicLong version = new AtomicLong();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final AtomicLong rebuilds = new AtomicLong();
+    private volatile long lastRebuildNanos;
+
+    private volatile Snapshot snapshot;
+
+    // Orders after-commit patches: a ticket is taken after the commit and before the read
+    private final AtomicLong tickets = new AtomicLong();
+    // Guarded by this: last ticket applied per sweet (whole row, quantity) and of the last load
+    private final Map<Long, Long> rowTickets = new HashMap<>();
+    private final Map<Long, Long> quantityTickets = new HashMap<>();
+    private long loadTicket;
+
+    public record Snapshot(long version, List<Sweet> sweets, Map<Long, Sweet> byId) {
+    }
+
+    // WARM UP ON STARTUP
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        snapshot();
+    }
+
+    // CURRENT SNAPSHOT (loads from DB on first use)
+    public Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current != null) {
+            hits.increment();
+            return current;
+        }
+        misses.increment();
+        return reload();
+    }
+
+    // Copies of every sweet; read-only bulk access goes through snapshot()
+    public List<Sweet> getAll() {
+        return snapshot().sweets().stream().map(SweetCatalog::copyOf).toList();
+    }
+
+    public Optional<Sweet> findById(Long id) {
+        return Optional.ofNullable(snapshot().byId().get(id)).map(SweetCatalog::copyOf);
+    }
+
+    // Monotonic catalog version, bumped on every write after the listeners have run
+    public long version() {
+        return version.get();
+    }
+
+    // Strong ETag for anything derived from the given catalog version
+    public String etag(long version) {
+        return "\"" + epoch + "-" + version + "\"";
+    }
+
+    public String etag() {
+        return etag(version());
+    }
+
+    // PATCH: single sweet added or changed
+    public void upsert(Sweet sweet) {
+        upsertAll(List.of(sweet));
+    }
+
+    // PATCH: many sweets changed in one go (one version bump)
+    public void upsertAll(Collection<Sweet> sweets) {
+        List<Long> ids = sweets.stream().map(Sweet::getId).toList();
+        afterCommit(() -> {
+            if (snapshot == null) {
+                bump();   // the next read loads from the DB anyway
+                return;
+            }
+            long ticket = tickets.incrementAndGet();
+            List<Sweet> rows = committedRows(ids);
+            synchronized (this) {
+                apply(ticket, rows, List.of());
+            }
+        });
+    }
+
+    // PATCH: quantity only; read inside the catalog lock so that concurrent
+    // patches always converge on the latest value
+    public void patchQuantity(Long id, IntSupplier quantity) {
+        afterCommit(() -> {
+            synchronized (this) {
+                Snapshot current = snapshot;
+                Sweet existing = current == null ? null : current.byId().get(id);
+                if (existing == null) {
+                    bump();
+                    return;
+                }
+                long ticket = tickets.incrementAndGet();
+                Sweet patched = copyOf(existing);
+                patched.setQuantity(quantity.getAsInt());
+                quantityTickets.put(id, ticket);
+                apply(ticket, List.of(patched), List.of(), false);
+            }
+        });
+    }
+
+    // PATCH: sweet removed
+    public void remove(Long id) {
+        afterCommit(() -> {
+            synchronized (this) {
+                apply(tickets.incrementAndGet(), List.of(), List.of(id));
+            }
+        });
+    }
+
+    // Drop the snapshot; it is rebuilt from the DB on next read
+    public void invalidate() {
+        afterCommit(() -> {
+            synchronized (this) {
+                bump();
+                snapshot = null;
+            }
+        });
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        Snapshot current = snapshot;
+        stats.put("version", version.get());
+        stats.put("size", current == null ? 0 : current.sweets().size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("rebuilds", rebuilds.get());
+        stats.put("lastRebuildMillis", lastRebuildNanos / 1_000_000.0);
+        return stats;
+    }
+
+    private synchronized Snapshot reload() {
+        if (snapshot != null) {
+            return snapshot;
+        }
+        long start = System.nanoTime();
+        // Patches that read before this load are covered by it
+        loadTicket = tickets.incrementAndGet();
+        rowTickets.clear();
+        quantityTickets.clear();
+
+        TreeMap<Long, Sweet> byId = new TreeMap<>();
+        for (Sweet sweet : sweetRepository.findAll()) {
+            byId.put(sweet.getId(), copyOf(sweet));
+        }
+        Snapshot fresh = freeze(version.get() + 1, byId);
+
+        snapshot = fresh;
+        lastRebuildNanos = System.nanoTime() - start;
+        rebuilds.incrementAndGet();
+
+        eventPublisher.publishEvent(new SweetCatalogChangedEvent(fresh, true, List.of()));
+        version.set(fresh.version());
+        return fresh;
+    }
+
+    // Sweets no longer in the DB are left to their remove()
+    private List<Sweet> committedRows(List<Long> ids) {
+        List<Sweet> rows = new ArrayList<>(ids.size());
+        for (Object[] row : sweetRepository.findRows(ids)) {
+            rows.add(Sweet.builder()
+                    .id((Long) row[0])
+                    .name((String) row[1])
+                    .category((String) row[2])
+                    .price((Double) row[3])
+                    .quantity((Integer) row[4])
+                    .imageUrl((String) row[5])
+                    .build());
+        }
+        return rows;
+    }
+
+    private void apply(long ticket, List<Sweet> upserts, List<Long> deletes) {
+        apply(ticket, upserts, deletes, true);
+    }
+
+    // wholeRow: the upserts were read from the DB at this ticket (not just their quantity)
+    private synchronized void apply(long ticket, List<Sweet> upserts, List<Long> deletes, boolean wholeRow) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            // Nothing loaded yet, the next read picks the change up from the DB
+            bump();
+            return;
+        }
+        long next = version.get() + 1;
+        TreeMap<Long, Sweet> byId = new TreeMap<>(current.byId());
+        List<SweetCatalogChangedEvent.Change> changes = new ArrayList<>(upserts.size() + deletes.size());
+        for (Sweet sweet : upserts) {
+            Long id = sweet.getId();
+            Sweet before = byId.get(id);
+            if (wholeRow) {
+                if (!claimRow(id, ticket)) {
+                    continue;   // a later read of this row is already applied
+                }
+                if (before != null && quantityTickets.getOrDefault(id, 0L) > ticket) {
+                    sweet.setQuantity(before.getQuantity());   // keep the later quantity patch
+                }
+            }
+            byId.put(id, sweet);
+            changes.add(new SweetCatalogChangedEvent.Change(id, before, sweet));
+        }
+        for (Long id : deletes) {
+            if (!claimRow(id, ticket)) {
+                continue;
+            }
+            Sweet before = byId.remove(id);
+            if (before != null) {
+                changes.add(new SweetCatalogChangedEvent.Change(id, before, null));
+            }
+        }
+        Snapshot patched = freeze(next, byId);
+        snapshot = patched;
+
+        eventPublisher.publishEvent(new SweetCatalogChangedEvent(patched, false, changes));
+        version.set(next);
+    }
+
+    // Version-only change (nothing loaded, or the snapshot dropped)
+    private synchronized void bump() {
+        version.incrementAndGet();
+    }
+
+    // Caller holds the catalog lock
+    private boolean claimRow(Long id, long ticket) {
+        if (ticket < loadTicket || rowTickets.getOrDefault(id, 0L) > ticket) {
+            return false;
+        }
+        rowTickets.put(id, ticket);
+        return true;
+    }
+
+    private static Snapshot freeze(long version, TreeMap<Long, Sweet> byId) {
+        return new Snapshot(
+                version,
+                List.copyOf(byId.values()),
+                Collections.unmodifiableMap(byId)
+        );
+    }
+
+    // Detached copy; snapshot entries never share an instance with JPA or callers
+    static Sweet copyOf(Sweet sweet) {
+        return Sweet.builder()
+                .id(sweet.getId())
+                .name(sweet.getName())
+                .category(sweet.getCategory())
+                .price(sweet.getPrice())
+                .quantity(sweet.getQuantity())
+                .imageUrl(sweet.getImageUrl())
+                .build();
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
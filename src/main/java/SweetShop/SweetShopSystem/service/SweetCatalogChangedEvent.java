@@ -0,0 +1,17 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import java.util.List;
+
+/**
+ * Published by {@link SweetCatalog} (synchronously, in version order) whenever
+ * the snapshot is reloaded or patched. Listeners keeping derived in-memory
+ * structures rebuild on {@code reload} and apply {@code changes} otherwise.
+ */
+public record SweetCatalogChangedEvent(SweetCatalog.Snapshot snapshot, boolean reload, List<Change> changes) {
+
+    // before == null: added, after == null: deleted
+    public record Change(Long id, Sweet before, Sweet after) {
+    }
+}
@@ -0,0 +1,112 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Pre-serialized JSON for the catalog.
+ *
+ * Each sweet is serialized once into a byte fragment and reused for as long as
+ * the catalog keeps the same {@link Sweet} instance, so a write only costs one
+ * re-serialization. The full listing (plain and gzip) is assembled from the
+ * fragments once per catalog version.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetCatalogJson {
+
+    private final SweetCatalog sweetCatalog;
+    private final ObjectMapper objectMapper;
+
+    private final Map<Long, Fragment> fragments = new ConcurrentHashMap<>();
+    private volatile Body body;
+
+    public record Body(long version, byte[] json, byte[] gzip) {
+    }
+
+    private record Fragment(Sweet source, byte[] json) {
+    }
+
+    // FULL LISTING FOR THE CURRENT CATALOG VERSION
+    public Body body() {
+        SweetCatalog.Snapshot snapshot = sweetCatalog.snapshot();
+        Body current = body;
+        if (current != null && current.version() == snapshot.version()) {
+            return current;
+        }
+        return render(snapshot);
+    }
+
+    // JSON ARRAY FOR ANY LIST OF CATALOG SWEETS
+    public byte[] toJson(List<Sweet> sweets) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(sweets.size() * 128 + 2);
+        out.write('[');
+        for (int i = 0; i < sweets.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            out.writeBytes(fragment(sweets.get(i)));
+        }
+        out.write(']');
+        return out.toByteArray();
+    }
+
+    public byte[] fragment(Sweet sweet) {
+        Fragment cached = fragments.get(sweet.getId());
+        if (cached != null && cached.source() == sweet) {
+            return cached.json();
+        }
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(sweet);
+            fragments.put(sweet.getId(), new Fragment(sweet, json));
+            return json;
+        } catch (JsonProcessingException e) {
+            throw new RuntimeException("Error serializing sweet: " + e.getMessage());
+        }
+    }
+
+    private synchronized Body render(SweetCatalog.Snapshot snapshot) {
+        Body current = body;
+        if (current != null && current.version() == snapshot.version()) {
+            return current;
+        }
+
+        byte[] json = toJson(snapshot.sweets());
+        Body rendered = new Body(snapshot.version(), json, gzip(json));
+
+        // Forget fragments of deleted sweets
+        if (fragments.size() > snapshot.byId().size()) {
+            Set<Long> stale = new HashSet<>(fragments.keySet());
+            stale.removeAll(snapshot.byId().keySet());
+            stale.forEach(fragments::remove);
+        }
+
+        if (current == null || current.version() < rendered.version()) {
+            body = rendered;
+        }
+        return rendered;
+    }
+
+    private static byte[] gzip(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json);
+        } catch (IOException e) {
+            throw new RuntimeException("Error compressing catalog: " + e.getMessage());
+        }
+        return out.toByteArray();
+    }
+}
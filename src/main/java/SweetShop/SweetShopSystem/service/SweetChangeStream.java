@@ -0,0 +1,255 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pushes catalog and stock deltas to Server-Sent Events subscribers.
+ *
+ * Each subscriber has a small buffer keyed by sweet id, so repeated updates
+ * to one sweet conflate into the latest one, and its own virtual thread that
+ * sleeps until there is something to send (or a keepalive is due). An idle
+ * connection therefore costs one parked virtual thread. A subscriber that
+ * falls so far behind that its buffer overflows gets a single "reset" event
+ * instead and should re-read {@code GET /api/sweets}; the first event on
+ * every connection is such a reset carrying the current catalog version.
+ *
+ * Catalog listeners run on the writing thread, so the fan-out to subscribers
+ * is handed to a single dispatcher thread and costs the writer one enqueue.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetChangeStream {
+
+    // Compact wire format for one changed sweet
+    public record Delta(Long id, String name, String category, Double price, Integer quantity, boolean deleted) {
+
+        static Delta of(SweetCatalogChangedEvent.Change change) {
+            Sweet sweet = change.after();
+            if (sweet == null) {
+                return new Delta(change.id(), null, null, null, null, true);
+            }
+            Sweet before = change.before();
+            if (before != null
+                    && Objects.equals(before.getName(), sweet.getName())
+                    && Objects.equals(before.getCategory(), sweet.getCategory())
+                    && before.getPrice() == sweet.getPrice()) {
+                // Stock-only change: the common case, keep it tiny
+                return new Delta(sweet.getId(), null, null, null, sweet.getQuantity(), false);
+            }
+            return new Delta(sweet.getId(), sweet.getName(), sweet.getCategory(), sweet.getPrice(),
+                    sweet.getQuantity(), false);
+        }
+
+        // Conflation: a later stock-only delta must not drop fields an earlier one still has to deliver
+        Delta then(Delta later) {
+            if (later.deleted() || deleted) {
+                return later;
+            }
+            return new Delta(id,
+                    later.name() != null ? later.name() : name,
+                    later.category() != null ? later.category() : category,
+                    later.price() != null ? later.price() : price,
+                    later.quantity() != null ? later.quantity() : quantity,
+                    false);
+        }
+    }
+
+    private final SweetCatalog sweetCatalog;
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+    private final ExecutorService dispatcher = Executors.newSingleThreadExecutor(
+            Thread.ofVirtual().name("sse-dispatch").factory());
+
+    @Value("${sweets.events.max-subscribers:10000}")
+    private int maxSubscribers;
+
+    @Value("${sweets.events.buffer-size:256}")
+    private int bufferSize;
+
+    @Value("${sweets.events.keepalive-ms:15000}")
+    private long keepaliveMillis;
+
+    @Value("${sweets.events.timeout-ms:1800000}")
+    private long timeoutMillis;
+
+    public SseEmitter subscribe() {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            throw new IllegalStateException("Too many event subscribers");
+        }
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        register(emitter);
+        return emitter;
+    }
+
+    // Starts pushing to an emitter; the caller has already counted it
+    void register(SseEmitter emitter) {
+        Subscriber subscriber = new Subscriber(emitter);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(e -> subscriber.close());
+        subscribers.add(subscriber);
+
+        // Tell the client which version it is starting from
+        subscriber.offerReset(sweetCatalog.version());
+        Thread.ofVirtual().name("sse-subscriber").start(subscriber::drain);
+    }
+
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    @EventListener
+    public void onCatalogChanged(SweetCatalogChangedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        long version = event.snapshot().version();
+        if (event.reload()) {
+            dispatcher.execute(() -> subscribers.forEach(s -> s.offerReset(version)));
+            return;
+        }
+        List<Delta> deltas = new ArrayList<>(event.changes().size());
+        for (SweetCatalogChangedEvent.Change change : event.changes()) {
+            deltas.add(Delta.of(change));
+        }
+        dispatcher.execute(() -> subscribers.forEach(s -> s.offer(deltas, version)));
+    }
+
+    @PreDestroy
+    public void stop() {
+        dispatcher.shutdownNow();
+        subscribers.forEach(s -> s.emitter.complete());
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition ready = lock.newCondition();
+
+        // Guarded by lock
+        private LinkedHashMap<Long, Delta> pending = new LinkedHashMap<>();
+        private boolean reset;
+        private long version;
+        private boolean closed;
+
+        Subscriber(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        void offer(List<Delta> deltas, long version) {
+            lock.lock();
+            try {
+                if (closed || reset) {
+                    return;
+                }
+                for (Delta delta : deltas) {
+                    Delta earlier = pending.remove(delta.id());   // keep latest-change order
+                    pending.put(delta.id(), earlier == null ? delta : earlier.then(delta));
+                }
+                if (pending.size() > bufferSize) {
+                    // Too far behind: drop the backlog, ask the client to re-read
+                    pending.clear();
+                    reset = true;
+                }
+                this.version = version;
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void offerReset(long version) {
+            lock.lock();
+            try {
+                pending.clear();
+                reset = true;
+                this.version = version;
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        // Runs on the subscriber's virtual thread
+        void drain() {
+            while (true) {
+                Collection<Delta> batch;
+                boolean sendReset;
+                long batchVersion;
+                lock.lock();
+                try {
+                    if (!closed && !reset && pending.isEmpty()) {
+                        ready.await(keepaliveMillis, TimeUnit.MILLISECONDS);
+                    }
+                    if (closed) {
+                        return;
+                    }
+                    batch = pending.values();
+                    pending = new LinkedHashMap<>();
+                    sendReset = reset;
+                    reset = false;
+                    batchVersion = version;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    close();
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    if (sendReset) {
+                        emitter.send(SseEmitter.event().name("reset").id(Long.toString(batchVersion))
+                                .data(Map.of("version", batchVersion), MediaType.APPLICATION_JSON));
+                    } else if (!batch.isEmpty()) {
+                        emitter.send(SseEmitter.event().name("sweets").id(Long.toString(batchVersion))
+                                .data(batch, MediaType.APPLICATION_JSON));
+                    } else {
+                        emitter.send(SseEmitter.event().comment("keepalive"));
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client went away
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                closed = true;
+                ready.signal();
+            } finally {
+                lock.unlock();
+            }
+            if (subscribers.remove(this)) {
+                subscriberCount.decrementAndGet();
+            }
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Struct-of-arrays copy of the catalog for attribute filters.
+ *
+ * Each sweet occupies one slot across primitive columns (price, quantity,
+ * dictionary-encoded category). A filter is one branch-light pass over those
+ * arrays that produces a bitset of matching slots; only the matches are
+ * mapped back to the catalog's {@link Sweet} instances.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetColumnStore {
+
+    private final SweetCatalog sweetCatalog;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Integer> categoryIds = new HashMap<>();
+    private final Map<Long, Integer> slotBySweetId = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+
+    private Sweet[] docs = new Sweet[64];
+    private double[] price = new double[64];
+    private int[] quantity = new int[64];
+    private int[] categoryId = new int[64];
+    private long[] live = new long[1];
+    private int rows;
+    // Catalog version of the last change applied
+    private volatile long version;
+
+    // KEEP IN SYNC WITH THE CATALOG
+    @EventListener
+    public void onCatalogChanged(SweetCatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            version = event.snapshot().version();
+            if (event.reload()) {
+                clear();
+                event.snapshot().sweets().forEach(this::put);
+                return;
+            }
+            for (SweetCatalogChangedEvent.Change change : event.changes()) {
+                if (change.after() == null) {
+                    remove(change.id());
+                } else {
+                    put(change.after());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A filter that reads this first sees data at least this new
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Sweets matching all given filters (null = no filter), in id order.
+     */
+    public List<Sweet> filter(String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        // Make sure the catalog (and therefore this store) is loaded
+        sweetCatalog.snapshot();
+
+        List<Sweet> matches = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            int wantedCategory = -1;
+            if (category != null) {
+                Integer id = categoryIds.get(category.toLowerCase(Locale.ROOT));
+                if (id == null) {
+                    return List.of();
+                }
+                wantedCategory = id;
+            }
+            double min = minPrice == null ? Double.NEGATIVE_INFINITY : minPrice;
+            double max = maxPrice == null ? Double.POSITIVE_INFINITY : maxPrice;
+            int minQuantity = inStockOnly ? 1 : Integer.MIN_VALUE;
+
+            long[] bits = scan(wantedCategory, min, max, minQuantity);
+            for (int word = 0; word < bits.length; word++) {
+                long w = bits[word];
+                while (w != 0) {
+                    matches.add(docs[(word << 6) + Long.numberOfTrailingZeros(w)]);
+                    w &= w - 1;
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        matches.sort(Comparator.comparing(Sweet::getId));
+        return matches;
+    }
+
+    // One pass over the columns; a row matches when every predicate holds
+    private long[] scan(int wantedCategory, double min, double max, int minQuantity) {
+        long[] bits = new long[(rows + 63) >>> 6];
+        for (int word = 0; word < bits.length; word++) {
+            int base = word << 6;
+            int end = Math.min(base + 64, rows);
+            long w = 0;
+            for (int i = base; i < end; i++) {
+                boolean match = (wantedCategory < 0 | categoryId[i] == wantedCategory)
+                        & price[i] >= min
+                        & price[i] <= max
+                        & quantity[i] >= minQuantity;
+                w |= (match ? 1L : 0L) << (i - base);
+            }
+            bits[word] = w & live[word];
+        }
+        return bits;
+    }
+
+    private void put(Sweet sweet) {
+        Integer existing = slotBySweetId.get(sweet.getId());
+        int slot;
+        if (existing != null) {
+            slot = existing;
+        } else {
+            slot = freeSlots.isEmpty() ? rows++ : freeSlots.pop();
+            ensureCapacity(rows);
+            slotBySweetId.put(sweet.getId(), slot);
+            live[slot >>> 6] |= 1L << (slot & 63);
+        }
+        docs[slot] = sweet;
+        price[slot] = sweet.getPrice();
+        quantity[slot] = sweet.getQuantity();
+        categoryId[slot] = categoryId(sweet.getCategory());
+    }
+
+    private void remove(Long sweetId) {
+        Integer slot = slotBySweetId.remove(sweetId);
+        if (slot == null) {
+            return;
+        }
+        live[slot >>> 6] &= ~(1L << (slot & 63));
+        docs[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private int categoryId(String category) {
+        String key = category == null ? "" : category.toLowerCase(Locale.ROOT);
+        Integer id = categoryIds.get(key);
+        if (id == null) {
+            id = categoryIds.size();
+            categoryIds.put(key, id);
+        }
+        return id;
+    }
+
+    private void ensureCapacity(int size) {
+        if (size > docs.length) {
+            int capacity = docs.length * 2;
+            docs = Arrays.copyOf(docs, capacity);
+            price = Arrays.copyOf(price, capacity);
+            quantity = Arrays.copyOf(quantity, capacity);
+            categoryId = Arrays.copyOf(categoryId, capacity);
+        }
+        int words = (size + 63) >>> 6;
+        if (words > live.length) {
+            live = Arrays.copyOf(live, Math.max(words, live.length * 2));
+        }
+    }
+
+    private void clear() {
+        categoryIds.clear();
+        slotBySweetId.clear();
+        freeSlots.clear();
+        Arrays.fill(docs, null);
+        Arrays.fill(live, 0L);
+        rows = 0;
+    }
+}
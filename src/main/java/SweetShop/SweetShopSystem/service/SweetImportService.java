@@ -0,0 +1,283 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.dto.ImportResultDTO;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+
+/**
+ * Bulk catalog import/export in CSV or NDJSON.
+ *
+ * Imports read the upload line by line and insert in JDBC batches of
+ * {@code sweets.import.batch-size}, one transaction per batch, so neither the
+ * file nor the whole import is ever held in memory. Exports stream rows
+ * straight from the DB cursor.
+ *
+ * CSV needs a header row with at least name, category, price and quantity
+ * (imageUrl optional). Quoted fields may contain commas and doubled quotes
+ * but not line breaks.
+ */
+@Service
+@RequiredArgsConstructor
+public class SweetImportService {
+
+    private static final int MAX_REPORTED_ERRORS = 100;
+
+    private final SweetBatchRepository sweetBatchRepository;
+    private final InventoryBatchRepository inventoryBatchRepository;
+    private final SweetService sweetService;
+    private final SweetCatalog sweetCatalog;
+    private final ObjectMapper objectMapper;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${sweets.import.batch-size:500}")
+    private int batchSize;
+
+    // IMPORT
+    public ImportResultDTO importSweets(InputStream in, String format) throws IOException {
+        boolean csv = isCsv(format);
+        long start = System.nanoTime();
+        long imported = 0;
+        long rejected = 0;
+        List<String> errors = new ArrayList<>();
+        List<Sweet> batch = new ArrayList<>(batchSize);
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8))) {
+            Map<String, Integer> columns = null;
+            if (csv) {
+                String header = reader.readLine();
+                if (header == null) {
+                    throw new RuntimeException("CSV header row is missing");
+                }
+                columns = headerColumns(header);
+            }
+
+            String line;
+            long lineNumber = csv ? 1 : 0;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    batch.add(csv ? fromCsv(line, columns) : fromJson(line));
+                } catch (RuntimeException e) {
+                    rejected++;
+                    if (errors.size() < MAX_REPORTED_ERRORS) {
+                        errors.add("line " + lineNumber + ": " + e.getMessage());
+                    }
+                    continue;
+                }
+                if (batch.size() == batchSize) {
+                    imported += flush(tx, batch);
+                }
+            }
+            imported += flush(tx, batch);
+        } finally {
+            if (imported > 0) {
+                // New ids came from the DB, so reload the catalog once
+                sweetCatalog.invalidate();
+            }
+        }
+
+        long elapsedNanos = System.nanoTime() - start;
+        return ImportResultDTO.builder()
+                .imported(imported)
+                .rejected(rejected)
+                .errors(errors)
+                .elapsedMillis(elapsedNanos / 1_000_000)
+                .rowsPerSecond(elapsedNanos == 0 ? 0 : imported / (elapsedNanos / 1_000_000_000.0))
+                .build();
+    }
+
+    // EXPORT
+    public void exportSweets(OutputStream out, String format) throws IOException {
+        boolean csv = isCsv(format);
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        if (csv) {
+            writer.write("id,name,category,price,quantity,imageUrl\n");
+        }
+        sweetService.streamAllSweets(sweet -> {
+            try {
+                if (csv) {
+                    writer.write(sweet.getId() + "," + csvField(sweet.getName()) + "," + csvField(sweet.getCategory())
+                            + "," + sweet.getPrice() + "," + sweet.getQuantity() + "," + csvField(sweet.getImageUrl()) + "\n");
+                } else {
+                    writer.write(objectMapper.writeValueAsString(sweet));
+                    writer.write('\n');
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+        writer.flush();
+    }
+
+    private int flush(TransactionTemplate tx, List<Sweet> batch) {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        tx.executeWithoutResult(status -> {
+            sweetBatchRepository.insert(batch);
+            // Events use this batch's own generated ids, so concurrent inserts are never picked up
+            inventoryBatchRepository.insertCreateEvents(batch, System.currentTimeMillis());
+        });
+        int inserted = batch.size();
+        batch.clear();
+        return inserted;
+    }
+
+    private static boolean isCsv(String format) {
+        if (format == null || format.equalsIgnoreCase("csv")) {
+            return true;
+        }
+        if (format.equalsIgnoreCase("ndjson")) {
+            return false;
+        }
+        throw new RuntimeException("Unsupported format: " + format + " (use csv or ndjson)");
+    }
+
+    private static Map<String, Integer> headerColumns(String header) {
+        Map<String, Integer> columns = new HashMap<>();
+        List<String> names = parseCsvLine(header);
+        for (int i = 0; i < names.size(); i++) {
+            columns.put(names.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        for (String required : List.of("name", "category", "price", "quantity")) {
+            if (!columns.containsKey(required)) {
+                throw new RuntimeException("CSV header is missing column: " + required);
+            }
+        }
+        return columns;
+    }
+
+    private static Sweet fromCsv(String line, Map<String, Integer> columns) {
+        List<String> fields = parseCsvLine(line);
+        Integer image = columns.get("imageurl");
+        return validated(Sweet.builder()
+                .name(field(fields, columns.get("name")))
+                .category(field(fields, columns.get("category")))
+                .price(Double.parseDouble(field(fields, columns.get("price"))))
+                .quantity(Integer.parseInt(field(fields, columns.get("quantity"))))
+                .imageUrl(image == null ? null : field(fields, image))
+                .build());
+    }
+
+    private Sweet fromJson(String line) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(line);
+        } catch (IOException e) {
+            throw new RuntimeException("invalid JSON");
+        }
+        if (!node.hasNonNull("price") || !node.hasNonNull("quantity")) {
+            throw new RuntimeException("price and quantity are required");
+        }
+        return validated(Sweet.builder()
+                .name(node.path("name").asText(null))
+                .category(node.path("category").asText(null))
+                .price(number(node.get("price"), "price").doubleValue())
+                .quantity(wholeNumber(node.get("quantity"), "quantity"))
+                .imageUrl(node.path("imageUrl").asText(null))
+                .build());
+    }
+
+    // Numbers, or strings holding one; anything else is rejected rather than read as 0
+    private static Number number(JsonNode node, String name) {
+        if (node.isNumber()) {
+            return node.numberValue();
+        }
+        if (node.isTextual()) {
+            try {
+                return Double.parseDouble(node.asText().trim());
+            } catch (NumberFormatException e) {
+                // falls through
+            }
+        }
+        throw new RuntimeException(name + " must be a number");
+    }
+
+    private static int wholeNumber(JsonNode node, String name) {
+        if (node.isIntegralNumber() && node.canConvertToInt()) {
+            return node.intValue();
+        }
+        if (node.isTextual()) {
+            try {
+                return Integer.parseInt(node.asText().trim());
+            } catch (NumberFormatException e) {
+                // falls through
+            }
+        }
+        throw new RuntimeException(name + " must be a whole number");
+    }
+
+    private static Sweet validated(Sweet sweet) {
+        if (sweet.getName() == null || sweet.getName().isBlank()) {
+            throw new RuntimeException("name is required");
+        }
+        if (sweet.getPrice() < 0 || sweet.getQuantity() < 0) {
+            throw new RuntimeException("price and quantity must not be negative");
+        }
+        return sweet;
+    }
+
+    private static String field(List<String> fields, int index) {
+        if (index >= fields.size()) {
+            throw new RuntimeException("missing column " + (index + 1));
+        }
+        String value = fields.get(index).trim();
+        return value.isEmpty() ? null : value;
+    }
+
+    // Splits one CSV line, honouring "quoted, fields" and "" escapes
+    private static List<String> parseCsvLine(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(current.toString());
+                current.setLength(0);
+            } else {
+                current.append(c);
+            }
+        }
+        fields.add(current.toString());
+        return fields;
+    }
+
+    private static String csvField(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,265 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Predicate;
+
+/**
+ * Trigram inverted index over {@link Sweet#getName()}.
+ *
+ * Every catalog sweet gets a dense int slot; each trigram of the lower-cased
+ * name maps to a sorted {@code int[]} of slots. A substring query intersects
+ * the posting lists of its own trigrams and only verifies the survivors, so
+ * search cost depends on the number of matches, not the catalog size.
+ * Queries shorter than a trigram fall back to a scan of the in-memory names.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetNameIndex {
+
+    private static final int GRAM = 3;
+
+    private final SweetCatalog sweetCatalog;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final Map<Long, Integer> slotBySweetId = new HashMap<>();
+    private final Deque<Integer> freeSlots = new ArrayDeque<>();
+    private Sweet[] docs = new Sweet[64];
+    private String[] names = new String[64];
+    private int nextSlot;
+    // Catalog version of the last change applied
+    private volatile long version;
+
+    // KEEP IN SYNC WITH THE CATALOG
+    @EventListener
+    public void onCatalogChanged(SweetCatalogChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            version = event.snapshot().version();
+            if (event.reload()) {
+                clear();
+                event.snapshot().sweets().forEach(this::add);
+                return;
+            }
+            for (SweetCatalogChangedEvent.Change change : event.changes()) {
+                if (change.before() != null && change.after() != null
+                        && normalize(change.before().getName()).equals(normalize(change.after().getName()))) {
+                    // Name unchanged, postings stay as they are
+                    Integer slot = slotBySweetId.get(change.id());
+                    if (slot != null) {
+                        docs[slot] = change.after();
+                        continue;
+                    }
+                }
+                if (change.before() != null) {
+                    remove(change.id());
+                }
+                if (change.after() != null) {
+                    add(change.after());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // A search that reads this first sees data at least this new
+    public long version() {
+        return version;
+    }
+
+    /**
+     * Sweets whose name contains {@code query} (case-insensitive) and that pass
+     * {@code filter}, best matches first: exact name, prefix, word start, then
+     * any substring; shorter names win ties.
+     */
+    public List<Sweet> search(String query, Predicate<Sweet> filter) {
+        // Make sure the catalog (and therefore this index) is loaded
+        List<Sweet> all = sweetCatalog.snapshot().sweets();
+
+        if (query == null || query.isEmpty()) {
+            return all.stream().filter(filter).toList();
+        }
+        String q = normalize(query);
+
+        List<Hit> hits = new ArrayList<>();
+        lock.readLock().lock();
+        try {
+            if (q.length() < GRAM) {
+                for (int slot = 0; slot < nextSlot; slot++) {
+                    collect(slot, q, filter, hits);
+                }
+            } else {
+                int[] candidates = candidates(q);
+                for (int slot : candidates) {
+                    collect(slot, q, filter, hits);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        hits.sort(Comparator.comparingInt(Hit::score)
+                .thenComparingInt(Hit::length)
+                .thenComparing(hit -> hit.sweet().getId()));
+        return hits.stream().map(Hit::sweet).toList();
+    }
+
+    private record Hit(Sweet sweet, int score, int length) {
+    }
+
+    private void collect(int slot, String q, Predicate<Sweet> filter, List<Hit> hits) {
+        Sweet sweet = docs[slot];
+        if (sweet == null) {
+            return;
+        }
+        String name = names[slot];
+        int at = name.indexOf(q);
+        if (at < 0 || !filter.test(sweet)) {
+            return;
+        }
+        int score;
+        if (at == 0 && name.length() == q.length()) {
+            score = 0;
+        } else if (at == 0) {
+            score = 1;
+        } else if (!Character.isLetterOrDigit(name.charAt(at - 1))) {
+            score = 2;
+        } else {
+            score = 3;
+        }
+        hits.add(new Hit(sweet, score, name.length()));
+    }
+
+    // Intersection of the posting lists of all trigrams in q, smallest first
+    private int[] candidates(String q) {
+        long[] grams = trigrams(q);
+        Postings[] lists = new Postings[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return new int[0];
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(list -> list.size));
+
+        int[] result = Arrays.copyOf(lists[0].slots, lists[0].size);
+        int size = result.length;
+        for (int i = 1; i < lists.length && size > 0; i++) {
+            size = lists[i].retain(result, size);
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private void add(Sweet sweet) {
+        int slot = freeSlots.isEmpty() ? nextSlot++ : freeSlots.pop();
+        if (slot >= docs.length) {
+            docs = Arrays.copyOf(docs, docs.length * 2);
+            names = Arrays.copyOf(names, names.length * 2);
+        }
+        String name = normalize(sweet.getName());
+        docs[slot] = sweet;
+        names[slot] = name;
+        slotBySweetId.put(sweet.getId(), slot);
+
+        for (long gram : trigrams(name)) {
+            postings.computeIfAbsent(gram, key -> new Postings()).add(slot);
+        }
+    }
+
+    private void remove(Long sweetId) {
+        Integer slot = slotBySweetId.remove(sweetId);
+        if (slot == null) {
+            return;
+        }
+        for (long gram : trigrams(names[slot])) {
+            Postings list = postings.get(gram);
+            if (list != null && list.remove(slot) && list.size == 0) {
+                postings.remove(gram);
+            }
+        }
+        docs[slot] = null;
+        names[slot] = null;
+        freeSlots.push(slot);
+    }
+
+    private void clear() {
+        postings.clear();
+        slotBySweetId.clear();
+        freeSlots.clear();
+        Arrays.fill(docs, null);
+        Arrays.fill(names, null);
+        nextSlot = 0;
+    }
+
+    private static String normalize(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    // Distinct trigrams of s, each packed into a long (3 x 16-bit chars)
+    private static long[] trigrams(String s) {
+        if (s.length() < GRAM) {
+            return new long[0];
+        }
+        long[] grams = new long[s.length() - GRAM + 1];
+        for (int i = 0; i < grams.length; i++) {
+            grams[i] = ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+        }
+        Arrays.sort(grams);
+        int distinct = 0;
+        for (int i = 0; i < grams.length; i++) {
+            if (i == 0 || grams[i] != grams[i - 1]) {
+                grams[distinct++] = grams[i];
+            }
+        }
+        return Arrays.copyOf(grams, distinct);
+    }
+
+    // Sorted, growable int[] of slots
+    private static final class Postings {
+        private int[] slots = new int[4];
+        private int size;
+
+        void add(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at >= 0) {
+                return;
+            }
+            at = -at - 1;
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            System.arraycopy(slots, at, slots, at + 1, size - at);
+            slots[at] = slot;
+            size++;
+        }
+
+        boolean remove(int slot) {
+            int at = Arrays.binarySearch(slots, 0, size, slot);
+            if (at < 0) {
+                return false;
+            }
+            System.arraycopy(slots, at + 1, slots, at, size - at - 1);
+            size--;
+            return true;
+        }
+
+        // Keeps only the first n entries of candidates that are also in this list
+        int retain(int[] candidates, int n) {
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (Arrays.binarySearch(slots, 0, size, candidates[i]) >= 0) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+            return kept;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Bounded LRU + TTL cache of search results keyed by the normalized query.
+ *
+ * Entries remember the version of the index the loader read (not the catalog
+ * version seen before loading, which an index may not have applied yet) and
+ * are treated as misses once the catalog has moved on, so every
+ * {@link SweetService} mutation invalidates them without a sweep. Concurrent
+ * misses for the same key at the same version share one load (single-flight).
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetSearchCache {
+
+    private final SweetCatalog sweetCatalog;
+
+    @Value("${sweets.search-cache.max-size:1000}")
+    private int maxSize;
+
+    @Value("${sweets.search-cache.ttl-ms:30000}")
+    private long ttlMillis;
+
+    private final Map<Key, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+    private final Map<Key, Flight> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder loadNanos = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+
+    public record Key(String name, String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+    }
+
+    // A search result and the index version it was read from
+    public record Loaded(long version, List<Sweet> sweets) {
+    }
+
+    private record Entry(long version, long loadedAt, List<Sweet> result) {
+    }
+
+    private record Flight(long version, CompletableFuture<List<Sweet>> result) {
+    }
+
+    // Search is case-insensitive, so case never changes the answer
+    public static Key key(String name, String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        return new Key(
+                name == null || name.isEmpty() ? null : name.toLowerCase(Locale.ROOT),
+                category == null ? null : category.toLowerCase(Locale.ROOT),
+                minPrice,
+                maxPrice,
+                inStockOnly
+        );
+    }
+
+    public List<Sweet> get(Key key, Supplier<Loaded> loader) {
+        long version = sweetCatalog.version();
+
+        Entry entry;
+        synchronized (entries) {
+            entry = entries.get(key);
+        }
+        if (entry != null && entry.version() == version
+                && System.currentTimeMillis() - entry.loadedAt() < ttlMillis) {
+            hits.increment();
+            return entry.result();
+        }
+        misses.increment();
+
+        // Single-flight: the first miss loads, the others at the same version wait for it
+        CompletableFuture<List<Sweet>> mine = new CompletableFuture<>();
+        Flight flight = inFlight.compute(key, (k, current) ->
+                current != null && current.version() == version ? current : new Flight(version, mine));
+        if (flight.result() != mine) {
+            coalesced.increment();
+            return flight.result().join();
+        }
+
+        try {
+            long start = System.nanoTime();
+            Loaded loaded = loader.get();
+            List<Sweet> result = List.copyOf(loaded.sweets());
+            loadNanos.add(System.nanoTime() - start);
+            loads.increment();
+
+            put(key, new Entry(loaded.version(), System.currentTimeMillis(), result));
+            mine.complete(result);
+            return result;
+        } catch (RuntimeException e) {
+            mine.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long hitCount = hits.sum();
+        long missCount = misses.sum();
+        long loadCount = loads.sum();
+        synchronized (entries) {
+            stats.put("size", entries.size());
+        }
+        stats.put("hits", hitCount);
+        stats.put("misses", missCount);
+        stats.put("hitRatio", hitCount + missCount == 0 ? 0.0 : (double) hitCount / (hitCount + missCount));
+        stats.put("coalesced", coalesced.sum());
+        stats.put("evictions", evictions.sum());
+        stats.put("loads", loadCount);
+        stats.put("avgLoadMicros", loadCount == 0 ? 0.0 : loadNanos.sum() / 1_000.0 / loadCount);
+        return stats;
+    }
+
+    private void put(Key key, Entry entry) {
+        synchronized (entries) {
+            entries.put(key, entry);
+            if (entries.size() > maxSize) {
+                // Access-ordered map: the first entry is the least recently used
+                Key eldest = entries.keySet().iterator().next();
+                entries.remove(eldest);
+                evictions.increment();
+            }
+        }
+    }
+}
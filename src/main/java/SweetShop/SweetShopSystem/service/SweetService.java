@@ -1,26 +1,69 @@
 package SweetShop.SweetShopSystem.service;
 
+import SweetShop.SweetShopSystem.dto.BulkUpdateItemDTO;
+import SweetShop.SweetShopSystem.dto.BulkUpdateResultDTO;
+import SweetShop.SweetShopSystem.dto.CheckoutItemDTO;
+import SweetShop.SweetShopSystem.dto.SweetPageDTO;
 import SweetShop.SweetShopSystem.dto.SweetRequestDTO;
 import SweetShop.SweetShopSystem.dto.SweetUpdateRequestDTO;
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
 import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
 import SweetShop.SweetShopSystem.repository.SweetRepository;
 
 import com.cloudinary.Cloudinary;
 import com.cloudinary.utils.ObjectUtils;
+import jakarta.persistence.EntityManager;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.multipart.MultipartFile;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 @Service
 @RequiredArgsConstructor
 public class SweetService {
 
     private final SweetRepository sweetRepository;
+    private final SweetBatchRepository sweetBatchRepository;
     private final Cloudinary cloudinary;
+    private final SweetCatalog sweetCatalog;
+    private final SweetNameIndex sweetNameIndex;
+    private final SweetColumnStore sweetColumnStore;
+    private final SweetSearchCache sweetSearchCache;
+    private final StockLedger stockLedger;
+    private final InventoryJournal inventoryJournal;
+    private final SweetStockShards sweetStockShards;
+    private final EntityManager entityManager;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${sweets.page.default-size:50}")
+    private int defaultPageSize;
+
+    @Value("${sweets.page.max-size:500}")
+    private int maxPageSize;
+
+    @Value("${sweets.batch.max-ids:100}")
+    private int maxBatchIds;
 
     // ADMIN ADDS SWEET
+    @Transactional
     public Sweet addSweet(SweetRequestDTO dto) {
         Sweet sweet = Sweet.builder()
                 .name(dto.getName())
@@ -28,61 +71,444 @@ public class SweetService {
                 .price(dto.getPrice())
                 .quantity(dto.getQuantity())
                 .build();
-        return sweetRepository.save(sweet);
+        Sweet saved = sweetRepository.save(sweet);
+        inventoryJournal.record(saved.getId(), saved.getQuantity(), saved.getQuantity(), InventoryEventType.CREATE);
+        sweetCatalog.upsert(saved);
+        return saved;
     }
 
-    // GET ALL SWEETS
+    // GET ALL SWEETS (served from the in-memory catalog)
     public List<Sweet> getAllSweets() {
-        return sweetRepository.findAll();
+        return sweetCatalog.getAll();
+    }
+
+    // GET MANY SWEETS BY ID (request order, unknown ids skipped)
+    public List<Sweet> getSweetsByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+        if (ids.size() > maxBatchIds) {
+            throw new RuntimeException("At most " + maxBatchIds + " ids per request");
+        }
+        Map<Long, Sweet> byId = sweetCatalog.snapshot().byId();
+        return ids.stream()
+                .distinct()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(SweetCatalog::copyOf)
+                .toList();
+    }
+
+    // GET ONE PAGE OF SWEETS (keyset on id)
+    public SweetPageDTO getSweetsPage(Long after, Integer size) {
+        int pageSize = size == null || size <= 0 ? defaultPageSize : Math.min(size, maxPageSize);
+        List<Sweet> items = sweetRepository.findByIdGreaterThanOrderByIdAsc(
+                after == null ? 0L : after,
+                PageRequest.ofSize(pageSize)
+        );
+
+        Long nextCursor = items.size() < pageSize ? null : items.get(items.size() - 1).getId();
+        return new SweetPageDTO(items, nextCursor);
+    }
+
+    // STREAM ALL SWEETS (constant heap, entities are detached once consumed)
+    @Transactional(readOnly = true)
+    public void streamAllSweets(Consumer<Sweet> consumer) {
+        try (Stream<Sweet> sweets = sweetRepository.streamAll()) {
+            sweets.forEach(sweet -> {
+                consumer.accept(sweet);
+                entityManager.detach(sweet);
+            });
+        }
     }
 
     // SEARCH SWEETS
-    public List<Sweet> search(String name, String category, Double minPrice, Double maxPrice) {
-        return sweetRepository.search(name, category, minPrice, maxPrice);
+    // Name queries go through the trigram index (ranked), pure attribute
+    // filters through a columnar scan (id order)
+    public List<Sweet> search(String name, String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        return sweetSearchCache.get(
+                SweetSearchCache.key(name, category, minPrice, maxPrice, inStockOnly),
+                () -> searchUncached(name, category, minPrice, maxPrice, inStockOnly)
+        );
+    }
+
+    // Tagged with the index version read before the search: the results are at least that new
+    private SweetSearchCache.Loaded searchUncached(String name, String category, Double minPrice, Double maxPrice, boolean inStockOnly) {
+        sweetCatalog.snapshot();
+        if (name == null || name.isEmpty()) {
+            long version = sweetColumnStore.version();
+            return new SweetSearchCache.Loaded(version, sweetColumnStore.filter(category, minPrice, maxPrice, inStockOnly));
+        }
+        long version = sweetNameIndex.version();
+        return new SweetSearchCache.Loaded(version, sweetNameIndex.search(name, sweet ->
+                (category == null || category.equalsIgnoreCase(sweet.getCategory())) &&
+                (minPrice == null || sweet.getPrice() >= minPrice) &&
+                (maxPrice == null || sweet.getPrice() <= maxPrice) &&
+                (!inStockOnly || sweet.getQuantity() > 0)
+        ));
     }
 
     // UPDATE SWEET
     public Sweet updateSweet(Long id, SweetUpdateRequestDTO dto) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        stockLedger.evict(id);
+        Sweet saved = new TransactionTemplate(transactionManager).execute(status -> {
+            // Hot SKU: lock the shards and make the row exact before editing it
+            Integer sharded = sweetStockShards.collapse(id);
+            Sweet sweet = sweetRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sweet not found"));
+            int before = sweet.getQuantity();
 
-        sweet.setName(dto.getName());
-        sweet.setCategory(dto.getCategory());
-        sweet.setPrice(dto.getPrice());
-        sweet.setQuantity(dto.getQuantity());
+            sweet.setName(dto.getName());
+            sweet.setCategory(dto.getCategory());
+            sweet.setPrice(dto.getPrice());
+            sweet.setQuantity(dto.getQuantity());
 
-        return sweetRepository.save(sweet);
+            Sweet updated = sweetRepository.save(sweet);
+            if (sharded != null) {
+                sweetStockShards.spread(id, updated.getQuantity());
+            }
+            if (updated.getQuantity() != before) {
+                inventoryJournal.record(id, updated.getQuantity() - before, updated.getQuantity(), InventoryEventType.ADJUST);
+            }
+            return updated;
+        });
+        stockLedger.evict(id);
+        sweetCatalog.upsert(saved);
+        return saved;
     }
 
     // DELETE SWEET
     public void deleteSweet(Long id) {
-        sweetRepository.deleteById(id);
+        stockLedger.evict(id);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (sweetStockShards.collapse(id) != null) {
+                sweetStockShards.removeShards(id);
+            }
+            sweetRepository.findById(id).ifPresent(sweet -> {
+                sweetRepository.delete(sweet);
+                inventoryJournal.record(id, -sweet.getQuantity(), 0, InventoryEventType.DELETE);
+            });
+        });
+        stockLedger.evict(id);
+        sweetCatalog.remove(id);
     }
 
     // USER PURCHASE SWEET
+    // One conditional UPDATE decides the purchase; no read-modify-write race
+    @Transactional
     public Sweet purchaseSweet(Long id, int quantity) {
+        if (quantity <= 0) {
+            throw new RuntimeException("Quantity must be positive");
+        }
+
+        if (stockLedger.enabled()) {
+            return purchaseFromLedger(id, quantity);
+        }
+
+        if (sweetStockShards.isHot(id)) {
+            Sweet sweet = purchaseFromShards(id, quantity);
+            if (sweet != null) {
+                return sweet;
+            }
+        }
+
+        if (sweetRepository.decrementStock(id, quantity) == 0) {
+            Sweet current = sweetRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sweet not found"));
+            if (current.getStockShards() != null) {
+                // Became a hot SKU after we looked
+                Sweet sweet = purchaseFromShards(id, quantity);
+                if (sweet != null) {
+                    return sweet;
+                }
+            }
+            throw new RuntimeException("Not enough stock");
+        }
+
+        // Row is still locked by our UPDATE, so this read is exact
         Sweet sweet = sweetRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        inventoryJournal.record(id, -quantity, sweet.getQuantity(), InventoryEventType.PURCHASE);
+        sweetCatalog.upsert(sweet);
+        return sweet;
+    }
 
-        if (sweet.getQuantity() < quantity) {
-            throw new RuntimeException("Not enough stock");
+    // Flash-sale mode: admitted in memory, persisted by the ledger's write-behind.
+    // The journal is not part of the transaction, so a caller's rollback refunds it.
+    private Sweet purchaseFromLedger(Long id, int quantity) {
+        Sweet sweet = sweetCatalog.findById(id)
+                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        sweet.setQuantity(stockLedger.purchase(id, quantity));
+        sweetCatalog.patchQuantity(id, () -> stockLedger.available(id));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        stockLedger.refund(id, quantity);
+                        sweetCatalog.patchQuantity(id, () -> stockLedger.available(id));
+                    }
+                }
+            });
+        }
+        return sweet;
+    }
+
+    // Hot SKU: taken from one shard; null if the sweet isn't sharded after all.
+    // The catalog gets the total seen here; the rebalance publishes the exact one.
+    private Sweet purchaseFromShards(Long id, int quantity) {
+        int remaining = sweetStockShards.purchase(id, quantity);
+        if (remaining == SweetStockShards.NOT_SHARDED) {
+            return null;
         }
+        Sweet sweet = sweetCatalog.findById(id)
+                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        sweet.setQuantity(remaining);
+        inventoryJournal.recordAll(List.of(InventoryJournal.event(id, -quantity, null, InventoryEventType.PURCHASE)));
+        sweetCatalog.patchQuantity(id, () -> remaining);
+        return sweet;
+    }
 
-        sweet.setQuantity(sweet.getQuantity() - quantity);
+    // RELEASE HELD STOCK (expired or cancelled reservations)
+    @Transactional
+    public void releaseStock(Long id, int quantity) {
+        if (stockLedger.enabled()) {
+            stockLedger.refund(id, quantity);
+            sweetCatalog.patchQuantity(id, () -> stockLedger.available(id));
+            return;
+        }
+        if (sweetRepository.incrementStock(id, quantity) == 0) {
+            int total = sweetStockShards.release(id, quantity);
+            if (total != SweetStockShards.NOT_SHARDED) {
+                inventoryJournal.recordAll(List.of(InventoryJournal.event(id, quantity, null, InventoryEventType.RELEASE)));
+                sweetCatalog.patchQuantity(id, () -> total);
+            }
+            // Otherwise the sweet was deleted meanwhile, nothing to give back
+            return;
+        }
+        sweetRepository.findById(id).ifPresent(sweet -> {
+            inventoryJournal.record(id, quantity, sweet.getQuantity(), InventoryEventType.RELEASE);
+            sweetCatalog.upsert(sweet);
+        });
+    }
+
+    // USER CHECKOUT (whole cart, all-or-nothing)
+    @Transactional
+    public List<Sweet> checkout(List<CheckoutItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("Cart is empty");
+        }
+
+        // Merge duplicate lines; ascending ids give a global lock order
+        TreeMap<Long, Integer> cart = new TreeMap<>();
+        for (CheckoutItemDTO item : items) {
+            if (item.getSweetId() == null || item.getQuantity() <= 0) {
+                throw new RuntimeException("Invalid cart item");
+            }
+            cart.merge(item.getSweetId(), item.getQuantity(), Integer::sum);
+        }
+
+        if (stockLedger.enabled()) {
+            return checkoutFromLedger(cart);
+        }
+
+        // Plain rows first (one batch), hot SKU shards after: the same lock
+        // order for every checkout
+        TreeMap<Long, Integer> rows = new TreeMap<>(cart);
+        TreeMap<Long, Integer> sharded = new TreeMap<>();
+        cart.forEach((id, quantity) -> {
+            if (sweetStockShards.isHot(id)) {
+                sharded.put(id, quantity);
+                rows.remove(id);
+            }
+        });
+
+        int[] updated = rows.isEmpty() ? new int[0] : sweetBatchRepository.decrementStock(rows);
+        int i = 0;
+        for (Long id : new ArrayList<>(rows.keySet())) {
+            if (updated[i++] == 0) {
+                Sweet current = sweetRepository.findById(id).orElse(null);
+                if (current == null || current.getStockShards() == null) {
+                    // Runtime exception rolls back the decrements already applied
+                    throw new RuntimeException("Not enough stock for sweet " + id);
+                }
+                sharded.put(id, rows.remove(id));
+            }
+        }
+
+        List<InventoryEvent> events = new ArrayList<>(cart.size());
+        Map<Long, Integer> shardTotals = new HashMap<>();
+        sharded.forEach((id, quantity) -> {
+            int remaining = sweetStockShards.purchase(id, quantity);
+            if (remaining == SweetStockShards.NOT_SHARDED) {
+                if (sweetRepository.decrementStock(id, quantity) == 0) {
+                    throw new RuntimeException("Not enough stock for sweet " + id);
+                }
+                rows.put(id, quantity);
+                return;
+            }
+            shardTotals.put(id, remaining);
+            events.add(InventoryJournal.event(id, -quantity, null, InventoryEventType.CHECKOUT));
+        });
+
+        List<Sweet> sweets = new ArrayList<>(sweetRepository.findAllById(rows.keySet()));
+        for (Sweet sweet : sweets) {
+            events.add(InventoryJournal.event(
+                    sweet.getId(), -cart.get(sweet.getId()), sweet.getQuantity(), InventoryEventType.CHECKOUT));
+        }
+        inventoryJournal.recordAll(events);
+        sweetCatalog.upsertAll(sweets);
 
-        return sweetRepository.save(sweet);
+        shardTotals.forEach((id, remaining) -> {
+            sweetCatalog.patchQuantity(id, () -> remaining);
+            sweetCatalog.findById(id).ifPresent(sweet -> {
+                sweet.setQuantity(remaining);
+                sweets.add(sweet);
+            });
+        });
+        sweets.sort(Comparator.comparing(Sweet::getId));
+        return sweets;
+    }
+
+    private List<Sweet> checkoutFromLedger(TreeMap<Long, Integer> cart) {
+        TreeMap<Long, Integer> taken = new TreeMap<>();
+        try {
+            for (Map.Entry<Long, Integer> line : cart.entrySet()) {
+                stockLedger.purchase(line.getKey(), line.getValue());
+                taken.put(line.getKey(), line.getValue());
+            }
+        } catch (RuntimeException e) {
+            // All or nothing: hand back what this order already took
+            taken.forEach(stockLedger::refund);
+            throw new RuntimeException(e.getMessage() + " (order cancelled)");
+        }
+
+        for (Long id : cart.keySet()) {
+            sweetCatalog.patchQuantity(id, () -> stockLedger.available(id));
+        }
+        return cart.keySet().stream()
+                .map(id -> sweetCatalog.findById(id).orElse(null))
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     // ADMIN RESTOCK SWEET
     public Sweet restockSweet(Long id, int quantity) {
-        Sweet sweet = sweetRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sweet not found"));
+        stockLedger.evict(id);
+        Sweet saved = new TransactionTemplate(transactionManager).execute(status -> {
+            Integer sharded = sweetStockShards.collapse(id);
+            Sweet sweet = sweetRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sweet not found"));
 
-        sweet.setQuantity(sweet.getQuantity() + quantity);
+            sweet.setQuantity(sweet.getQuantity() + quantity);
 
-        return sweetRepository.save(sweet);
+            Sweet updated = sweetRepository.save(sweet);
+            if (sharded != null) {
+                sweetStockShards.spread(id, updated.getQuantity());
+            }
+            inventoryJournal.record(id, quantity, updated.getQuantity(), InventoryEventType.RESTOCK);
+            return updated;
+        });
+        stockLedger.evict(id);
+        sweetCatalog.upsert(saved);
+        return saved;
     }
 
+    // ADMIN BULK RESTOCK / PRICE UPDATE
+    // One transaction, one JDBC batch in id order, one catalog version bump.
+    // An invalid line is reported and skipped on its own; a sweet that fails
+    // (unknown, stock would go negative) fails all its lines; the rest apply.
+    public List<BulkUpdateResultDTO> bulkUpdate(List<BulkUpdateItemDTO> items) {
+        if (items == null || items.isEmpty()) {
+            throw new RuntimeException("No items to update");
+        }
+
+        Map<Long, String> rejected = new HashMap<>();
+        Map<Integer, String> invalidLines = new HashMap<>();
+        TreeMap<Long, SweetBatchRepository.StockPriceChange> changes = new TreeMap<>();
+        for (int line = 0; line < items.size(); line++) {
+            BulkUpdateItemDTO item = items.get(line);
+            Long id = item.getSweetId();
+            if (id == null) {
+                throw new RuntimeException("Every item needs a sweetId");
+            }
+            if (item.getPrice() != null && item.getPrice() < 0) {
+                invalidLines.put(line, "Price must not be negative");
+                continue;
+            }
+            int restock = item.getRestock() == null ? 0 : item.getRestock();
+            // Duplicate lines add up their deltas; the last price wins
+            changes.merge(id, new SweetBatchRepository.StockPriceChange(restock, item.getPrice()), (a, b) ->
+                    new SweetBatchRepository.StockPriceChange(
+                            a.restock() + b.restock(), b.price() != null ? b.price() : a.price()));
+        }
+
+        // Ledger counters must not survive a direct stock write
+        changes.keySet().forEach(stockLedger::evict);
+        Map<Long, Sweet> updated = new HashMap<>();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            // Plain rows in one batch; hot SKUs after, each with its shards locked
+            TreeMap<Long, SweetBatchRepository.StockPriceChange> plain = new TreeMap<>(changes);
+            plain.keySet().removeIf(sweetStockShards::isHot);
+            TreeSet<Long> hot = new TreeSet<>(changes.keySet());
+            hot.removeAll(plain.keySet());
+
+            int[] rows = plain.isEmpty() ? new int[0] : sweetBatchRepository.applyChanges(plain, false);
+            int i = 0;
+            List<Long> ids = new ArrayList<>();
+            for (Long id : plain.keySet()) {
+                if (rows[i++] != 0) {
+                    ids.add(id);
+                } else if (sweetRepository.findById(id).map(Sweet::getStockShards).isPresent()) {
+                    hot.add(id);
+                } else {
+                    rejected.put(id, "Sweet not found or stock would go negative");
+                }
+            }
+            for (Long id : hot) {
+                SweetBatchRepository.StockPriceChange change = changes.get(id);
+                Integer sharded = sweetStockShards.collapse(id);
+                if (sweetBatchRepository.applyChanges(new TreeMap<>(Map.of(id, change)), true)[0] == 0) {
+                    rejected.put(id, "Sweet not found or stock would go negative");
+                    continue;
+                }
+                if (sharded != null) {
+                    sweetStockShards.spread(id, sharded + change.restock());
+                }
+                ids.add(id);
+            }
+            // Rows were changed behind JPA's back; read them fresh
+            entityManager.flush();
+            entityManager.clear();
+            List<InventoryEvent> events = new ArrayList<>(ids.size());
+            sweetRepository.findAllById(ids).forEach(sweet -> {
+                updated.put(sweet.getId(), sweet);
+                int restock = changes.get(sweet.getId()).restock();
+                // Price-only changes leave the stock history alone
+                if (restock != 0) {
+                    events.add(InventoryJournal.event(sweet.getId(), restock,
+                            sweet.getQuantity(), InventoryEventType.BULK_UPDATE));
+                }
+            });
+            inventoryJournal.recordAll(events);
+            sweetCatalog.upsertAll(updated.values());
+        });
+        changes.keySet().forEach(stockLedger::evict);
+
+        List<BulkUpdateResultDTO> results = new ArrayList<>(items.size());
+        for (int line = 0; line < items.size(); line++) {
+            BulkUpdateItemDTO item = items.get(line);
+            if (invalidLines.containsKey(line)) {
+                results.add(new BulkUpdateResultDTO(item.getSweetId(), false, invalidLines.get(line), null, null));
+                continue;
+            }
+            Sweet sweet = updated.get(item.getSweetId());
+            results.add(sweet != null
+                    ? new BulkUpdateResultDTO(sweet.getId(), true, null, sweet.getQuantity(), sweet.getPrice())
+                    : new BulkUpdateResultDTO(item.getSweetId(), false, rejected.get(item.getSweetId()), null, null));
+        }
+        return results;
+    }
 
     public Sweet uploadImage(Long id, MultipartFile file) {
         Sweet sweet = sweetRepository.findById(id)
@@ -98,7 +524,9 @@ public class SweetService {
 
             sweet.setImageUrl(imageUrl);
 
-            return sweetRepository.save(sweet);
+            Sweet saved = sweetRepository.save(sweet);
+            sweetCatalog.upsert(saved);
+            return saved;
 
         } catch (Exception e) {
             throw new RuntimeException("Error uploading to Cloudinary: " + e.getMessage());
@@ -0,0 +1,232 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.SweetStockShard;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetStockShardRepository;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Opt-in "hot SKU" mode: a sweet's stock is split over N shard rows so
+ * concurrent purchases lock different rows instead of queueing on one.
+ *
+ * A purchase takes from one random shard with a conditional UPDATE; if that
+ * shard is short it tries the others, and only if none can cover the order on
+ * its own does it lock every shard (in shard order) and take across them.
+ * While sharded, {@code sweet.stock_shards} is set so the plain row paths
+ * refuse to touch the stock, and {@code sweet.quantity} is a published copy of
+ * the shard total, refreshed by the periodic rebalance.
+ *
+ * Methods that touch shards must run inside the caller's transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SweetStockShards {
+
+    // Returned when the sweet turned out not to be sharded (any more)
+    public static final int NOT_SHARDED = -1;
+
+    private final SweetStockShardRepository shardRepository;
+    private final SweetBatchRepository sweetBatchRepository;
+    private final SweetCatalog sweetCatalog;
+    private final StockLedger stockLedger;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${sweets.hot-sku.max-shards:64}")
+    private int maxShards;
+
+    // Hint only: the stock_shards column is authoritative
+    private final Map<Long, Integer> hot = new ConcurrentHashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        for (Object[] row : shardRepository.countBySweet()) {
+            hot.put((Long) row[0], ((Number) row[1]).intValue());
+        }
+        if (!hot.isEmpty()) {
+            log.info("Loaded {} sharded sweets", hot.size());
+            if (stockLedger.enabled()) {
+                log.warn("Stock ledger is enabled; sharded sweets keep using their shards");
+            }
+        }
+    }
+
+    public boolean isHot(Long sweetId) {
+        return hot.containsKey(sweetId);
+    }
+
+    public Map<Long, Integer> shardCounts() {
+        return new TreeMap<>(hot);
+    }
+
+    // ENABLE: split the current stock over the given number of shards
+    public void enable(Long sweetId, int shards) {
+        if (shards < 2 || shards > maxShards) {
+            throw new RuntimeException("Shard count must be between 2 and " + maxShards);
+        }
+        if (stockLedger.enabled()) {
+            throw new RuntimeException("Hot SKU mode is not available while the stock ledger is enabled");
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Integer quantity = sweetBatchRepository.lockQuantity(sweetId);
+            if (quantity == null) {
+                throw new RuntimeException("Sweet not found");
+            }
+            if (!shardRepository.lockBySweetId(sweetId).isEmpty()) {
+                throw new RuntimeException("Sweet is already sharded");
+            }
+            int[] split = split(quantity, shards);
+            for (int shard = 0; shard < shards; shard++) {
+                shardRepository.save(SweetStockShard.builder()
+                        .sweetId(sweetId)
+                        .shard(shard)
+                        .quantity(split[shard])
+                        .build());
+            }
+            sweetBatchRepository.setStockShards(sweetId, shards);
+        });
+        hot.put(sweetId, shards);
+    }
+
+    // DISABLE: fold the shards back into sweet.quantity
+    public void disable(Long sweetId) {
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            if (collapse(sweetId) == null) {
+                throw new RuntimeException("Sweet is not sharded");
+            }
+            removeShards(sweetId);
+        });
+        hot.remove(sweetId);
+    }
+
+    // PURCHASE: returns the shard total left, or NOT_SHARDED
+    public int purchase(Long sweetId, int quantity) {
+        Integer shards = hot.get(sweetId);
+        if (shards != null) {
+            // A conditional UPDATE here could wait, fail its recheck and keep the row
+            // locked (H2 does), then deadlock with the ordered locking below
+            Optional<Integer> shard = shardRepository.claim(
+                    sweetId, quantity, ThreadLocalRandom.current().nextInt(shards), shards);
+            if (shard.isPresent() && shardRepository.decrement(sweetId, shard.get(), quantity) == 1) {
+                return shardRepository.totalQuantity(sweetId);
+            }
+        }
+
+        // No free shard can cover it: lock them all and take across shards
+        List<SweetStockShard> locked = shardRepository.lockBySweetId(sweetId);
+        if (locked.isEmpty()) {
+            hot.remove(sweetId);
+            return NOT_SHARDED;
+        }
+        hot.putIfAbsent(sweetId, locked.size());
+        int total = locked.stream().mapToInt(SweetStockShard::getQuantity).sum();
+        if (total < quantity) {
+            throw new RuntimeException("Not enough stock");
+        }
+        int remaining = quantity;
+        for (SweetStockShard shard : locked) {
+            int take = Math.min(remaining, shard.getQuantity());
+            shard.setQuantity(shard.getQuantity() - take);
+            remaining -= take;
+        }
+        return total - quantity;
+    }
+
+    // RELEASE: gives stock back to a random shard; returns the shard total, or NOT_SHARDED
+    public int release(Long sweetId, int quantity) {
+        Integer shards = hot.get(sweetId);
+        if (shards != null
+                && shardRepository.increment(sweetId, ThreadLocalRandom.current().nextInt(shards), quantity) == 1) {
+            return shardRepository.totalQuantity(sweetId);
+        }
+
+        // Hint missing or stale: the shard rows decide, as in purchase
+        List<SweetStockShard> locked = shardRepository.lockBySweetId(sweetId);
+        if (locked.isEmpty()) {
+            hot.remove(sweetId);
+            return NOT_SHARDED;
+        }
+        hot.put(sweetId, locked.size());
+        SweetStockShard first = locked.get(0);
+        first.setQuantity(first.getQuantity() + quantity);
+        return locked.stream().mapToInt(SweetStockShard::getQuantity).sum();
+    }
+
+    /**
+     * Locks every shard and copies their total into sweet.quantity, so the
+     * caller can treat the row as the source of truth until {@link #spread}.
+     * Returns null if the sweet isn't sharded.
+     */
+    public Integer collapse(Long sweetId) {
+        List<SweetStockShard> locked = shardRepository.lockBySweetId(sweetId);
+        if (locked.isEmpty()) {
+            return null;
+        }
+        int total = locked.stream().mapToInt(SweetStockShard::getQuantity).sum();
+        sweetBatchRepository.setQuantity(sweetId, total);
+        return total;
+    }
+
+    // Redistributes a new total evenly over the (already locked) shards
+    public void spread(Long sweetId, int total) {
+        List<SweetStockShard> locked = shardRepository.lockBySweetId(sweetId);
+        int[] split = split(total, locked.size());
+        for (int i = 0; i < locked.size(); i++) {
+            locked.get(i).setQuantity(split[i]);
+        }
+    }
+
+    // Used when the sweet itself is deleted
+    public void removeShards(Long sweetId) {
+        shardRepository.deleteBySweetId(sweetId);
+        sweetBatchRepository.setStockShards(sweetId, null);
+        hot.remove(sweetId);
+    }
+
+    // REBALANCE: even out the shards and publish the exact total
+    @Scheduled(fixedDelayString = "${sweets.hot-sku.rebalance-ms:1000}")
+    public void rebalance() {
+        for (Long sweetId : hot.keySet()) {
+            try {
+                Integer total = new TransactionTemplate(transactionManager).execute(status -> {
+                    Integer collapsed = collapse(sweetId);
+                    if (collapsed != null) {
+                        spread(sweetId, collapsed);
+                    }
+                    return collapsed;
+                });
+                if (total == null) {
+                    hot.remove(sweetId);
+                } else {
+                    sweetCatalog.patchQuantity(sweetId, () -> total);
+                }
+            } catch (RuntimeException e) {
+                log.warn("Could not rebalance shards of sweet {}: {}", sweetId, e.getMessage());
+            }
+        }
+    }
+
+    private static int[] split(int total, int shards) {
+        int[] split = new int[shards];
+        for (int i = 0; i < shards; i++) {
+            split[i] = total / shards + (i < total % shards ? 1 : 0);
+        }
+        return split;
+    }
+}
@@ -0,0 +1,311 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Prefix autocomplete over sweet names and categories.
+ *
+ * Term counts are patched incrementally from {@link SweetCatalogChangedEvent}s.
+ * Lookups run against an immutable, array-based trie in which every node
+ * stores its best completions, so a lookup is one walk down the prefix plus a
+ * copy of at most {@code k} strings. The trie is re-frozen lazily after the
+ * term set changes; lookups keep using the previous trie while that happens.
+ */
+@Component
+@RequiredArgsConstructor
+public class SweetSuggester {
+
+    private final SweetCatalog sweetCatalog;
+
+    @Value("${sweets.suggest.max-results:10}")
+    private int maxResults;
+
+    private final Map<String, Term> terms = new HashMap<>();
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+    private volatile long termsVersion;
+    private volatile Trie trie;
+
+    private static final class Term {
+        private String display;
+        private int count;
+    }
+
+    // KEEP TERM COUNTS IN SYNC WITH THE CATALOG
+    @EventListener
+    public void onCatalogChanged(SweetCatalogChangedEvent event) {
+        synchronized (terms) {
+            if (event.reload()) {
+                terms.clear();
+                event.snapshot().sweets().forEach(sweet -> count(sweet, 1));
+            } else {
+                boolean changed = false;
+                for (SweetCatalogChangedEvent.Change change : event.changes()) {
+                    Sweet before = change.before();
+                    Sweet after = change.after();
+                    if (before != null && after != null
+                            && Objects.equals(before.getName(), after.getName())
+                            && Objects.equals(before.getCategory(), after.getCategory())) {
+                        // Stock or price only: the terms, and so the trie, stay as they are
+                        continue;
+                    }
+                    if (before != null) {
+                        count(before, -1);
+                    }
+                    if (after != null) {
+                        count(after, 1);
+                    }
+                    changed = true;
+                }
+                if (!changed) {
+                    return;
+                }
+            }
+            termsVersion++;
+        }
+    }
+
+    // TOP-K COMPLETIONS FOR A PREFIX
+    public List<String> suggest(String prefix, Integer limit) {
+        if (prefix == null || prefix.isBlank()) {
+            return List.of();
+        }
+        int k = limit == null || limit <= 0 ? maxResults : Math.min(limit, maxResults);
+        return current().complete(normalize(prefix), k);
+    }
+
+    private Trie current() {
+        Trie current = trie;
+        if (current == null) {
+            // First lookup: make sure the catalog has been loaded
+            sweetCatalog.snapshot();
+        }
+        if (current != null && current.version == termsVersion) {
+            return current;
+        }
+        // Only one thread re-freezes; the others keep serving the old trie
+        if (current != null && !rebuildLock.tryLock()) {
+            return current;
+        }
+        if (current == null) {
+            rebuildLock.lock();
+        }
+        try {
+            Trie fresh = trie;
+            if (fresh == null || fresh.version != termsVersion) {
+                fresh = freeze();
+                trie = fresh;
+            }
+            return fresh;
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    private Trie freeze() {
+        String[] keys;
+        String[] display;
+        int[] weights;
+        long version;
+        synchronized (terms) {
+            version = termsVersion;
+            keys = terms.keySet().toArray(new String[0]);
+            Arrays.sort(keys);
+            display = new String[keys.length];
+            weights = new int[keys.length];
+            for (int i = 0; i < keys.length; i++) {
+                Term term = terms.get(keys[i]);
+                display[i] = term.display;
+                weights[i] = term.count;
+            }
+        }
+        return new Trie(version, keys, display, weights, maxResults);
+    }
+
+    private void count(Sweet sweet, int delta) {
+        count(sweet.getName(), delta);
+        count(sweet.getCategory(), delta);
+    }
+
+    private void count(String value, int delta) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        String key = normalize(value);
+        Term term = terms.computeIfAbsent(key, k -> new Term());
+        term.count += delta;
+        if (term.count <= 0) {
+            terms.remove(key);
+        } else if (delta > 0) {
+            term.display = value.trim();
+        }
+    }
+
+    private static String normalize(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Immutable trie in CSR layout: the children of node n are the edges
+     * {@code [edgeStart[n], edgeStart[n] + edgeCount[n])}, sorted by label.
+     * Node n's best completions are {@code top[topStart[n] .. topStart[n + 1])},
+     * stored as term ranks (0 = best overall).
+     */
+    static final class Trie {
+        private final long version;
+        private final String[] byRank;
+        private final int[] edgeStart;
+        private final int[] edgeCount;
+        private final char[] edgeLabel;
+        private final int[] edgeTarget;
+        private final int[] topStart;
+        private final int[] top;
+
+        // build state
+        private final String[] keys;
+        private final int[] rank;
+        private final int k;
+        private int nodes;
+        private int edges;
+        private int topSize;
+
+        Trie(long version, String[] keys, String[] display, int[] weights, int k) {
+            this.version = version;
+            this.keys = keys;
+            this.k = k;
+
+            // Rank terms: heavier first, then shorter, then alphabetical
+            Integer[] order = new Integer[keys.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            Arrays.sort(order, Comparator.<Integer>comparingInt(i -> -weights[i])
+                    .thenComparingInt(i -> keys[i].length())
+                    .thenComparing(i -> keys[i]));
+            this.rank = new int[keys.length];
+            this.byRank = new String[keys.length];
+            for (int r = 0; r < order.length; r++) {
+                rank[order[r]] = r;
+                byRank[r] = display[order[r]];
+            }
+
+            int maxNodes = 1;
+            for (String key : keys) {
+                maxNodes += key.length();
+            }
+            this.edgeStart = new int[maxNodes];
+            this.edgeCount = new int[maxNodes];
+            this.edgeLabel = new char[maxNodes];
+            this.edgeTarget = new int[maxNodes];
+            this.topStart = new int[maxNodes + 1];
+
+            int[][] tops = new int[maxNodes][];
+            build(0, keys.length, 0, tops);
+
+            this.top = new int[topSize];
+            int at = 0;
+            for (int n = 0; n < nodes; n++) {
+                topStart[n] = at;
+                System.arraycopy(tops[n], 0, top, at, tops[n].length);
+                at += tops[n].length;
+            }
+            topStart[nodes] = at;
+        }
+
+        List<String> complete(String prefix, int limit) {
+            if (nodes == 0) {
+                return List.of();
+            }
+            int node = 0;
+            for (int i = 0; i < prefix.length(); i++) {
+                node = child(node, prefix.charAt(i));
+                if (node < 0) {
+                    return List.of();
+                }
+            }
+            int from = topStart[node];
+            int to = Math.min(topStart[node + 1], from + limit);
+            String[] out = new String[to - from];
+            for (int i = from; i < to; i++) {
+                out[i - from] = byRank[top[i]];
+            }
+            return Arrays.asList(out);
+        }
+
+        private int child(int node, char c) {
+            int lo = edgeStart[node];
+            int hi = lo + edgeCount[node] - 1;
+            while (lo <= hi) {
+                int mid = (lo + hi) >>> 1;
+                char label = edgeLabel[mid];
+                if (label < c) {
+                    lo = mid + 1;
+                } else if (label > c) {
+                    hi = mid - 1;
+                } else {
+                    return edgeTarget[mid];
+                }
+            }
+            return -1;
+        }
+
+        // Builds the node for sorted keys[lo, hi) sharing a prefix of length depth
+        private int build(int lo, int hi, int depth, int[][] tops) {
+            int node = nodes++;
+            int candidates = 0;
+            int[] collected = new int[k * 4];
+
+            int i = lo;
+            if (i < hi && keys[i].length() == depth) {
+                collected[candidates++] = rank[i];
+                i++;
+            }
+
+            // Reserve a contiguous edge block for this node's children
+            int groups = 0;
+            for (int j = i; j < hi; groups++) {
+                char c = keys[j].charAt(depth);
+                while (j < hi && keys[j].charAt(depth) == c) {
+                    j++;
+                }
+            }
+            int base = edges;
+            edges += groups;
+            edgeStart[node] = base;
+            edgeCount[node] = groups;
+
+            int g = 0;
+            while (i < hi) {
+                char c = keys[i].charAt(depth);
+                int end = i;
+                while (end < hi && keys[end].charAt(depth) == c) {
+                    end++;
+                }
+                int child = build(i, end, depth + 1, tops);
+                edgeLabel[base + g] = c;
+                edgeTarget[base + g] = child;
+                g++;
+
+                int[] childTop = tops[child];
+                if (candidates + childTop.length > collected.length) {
+                    collected = Arrays.copyOf(collected, (candidates + childTop.length) * 2);
+                }
+                System.arraycopy(childTop, 0, collected, candidates, childTop.length);
+                candidates += childTop.length;
+                i = end;
+            }
+
+            Arrays.sort(collected, 0, candidates);
+            tops[node] = Arrays.copyOf(collected, Math.min(candidates, k));
+            topSize += tops[node].length;
+            return node;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package SweetShop.SweetShopSystem.service;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hierarchical hashed timing wheel.
+ *
+ * Four levels of 512 slots; level n covers 512^(n+1) ticks. A timeout is
+ * filed by its absolute deadline tick into the lowest level that can hold it
+ * (O(1)) and is moved one level down whenever the wheel above rolls over its
+ * slot. Cancellation is O(1) and lazy: cancelled entries are dropped when
+ * their slot comes up. Expired values are handed back to the caller of
+ * {@link #advance(long)} rather than run under the wheel's lock.
+ */
+final class TimingWheel<T> {
+
+    private static final int BITS = 9;
+    private static final int SIZE = 1 << BITS;
+    private static final int MASK = SIZE - 1;
+    private static final int LEVELS = 4;
+
+    private final long tickMillis;
+    private final long startMillis;
+    private final ArrayDeque<Timeout<T>>[][] slots;
+    private long currentTick;
+    private int size;
+
+    static final class Timeout<T> {
+        private final T value;
+        private final long deadlineTick;
+        private volatile boolean cancelled;
+
+        private Timeout(T value, long deadlineTick) {
+            this.value = value;
+            this.deadlineTick = deadlineTick;
+        }
+
+        T value() {
+            return value;
+        }
+
+        void cancel() {
+            cancelled = true;
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    TimingWheel(long tickMillis, long startMillis) {
+        this.tickMillis = tickMillis;
+        this.startMillis = startMillis;
+        this.slots = new ArrayDeque[LEVELS][SIZE];
+    }
+
+    synchronized Timeout<T> schedule(T value, long deadlineMillis) {
+        long deadlineTick = Math.max(currentTick + 1, ceilDiv(deadlineMillis - startMillis, tickMillis));
+        Timeout<T> timeout = new Timeout<>(value, deadlineTick);
+        place(timeout);
+        size++;
+        return timeout;
+    }
+
+    // Moves the wheel up to nowMillis and returns everything that expired on the way
+    List<T> advance(long nowMillis) {
+        List<T> expired = new ArrayList<>();
+        long target = (nowMillis - startMillis) / tickMillis;
+        synchronized (this) {
+            while (currentTick < target) {
+                currentTick++;
+
+                // Roll higher levels down first so their entries can expire this tick
+                for (int level = LEVELS - 1; level > 0; level--) {
+                    if ((currentTick & ((1L << (BITS * level)) - 1)) == 0) {
+                        cascade(level);
+                    }
+                }
+
+                ArrayDeque<Timeout<T>> due = slots[0][(int) (currentTick & MASK)];
+                if (due == null) {
+                    continue;
+                }
+                Timeout<T> timeout;
+                while ((timeout = due.poll()) != null) {
+                    size--;
+                    if (!timeout.cancelled) {
+                        expired.add(timeout.value);
+                    }
+                }
+            }
+        }
+        return expired;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    private void cascade(int level) {
+        int slot = (int) ((currentTick >>> (BITS * level)) & MASK);
+        ArrayDeque<Timeout<T>> entries = slots[level][slot];
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        slots[level][slot] = null;
+        for (Timeout<T> timeout : entries) {
+            if (timeout.cancelled) {
+                size--;
+            } else {
+                place(timeout);
+            }
+        }
+    }
+
+    private void place(Timeout<T> timeout) {
+        long delta = timeout.deadlineTick - currentTick;
+        int level = 0;
+        while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+            level++;
+        }
+        int slot = (int) ((timeout.deadlineTick >>> (BITS * level)) & MASK);
+        ArrayDeque<Timeout<T>> entries = slots[level][slot];
+        if (entries == null) {
+            entries = new ArrayDeque<>();
+            slots[level][slot] = entries;
+        }
+        entries.add(timeout);
+    }
+
+    private static long ceilDiv(long x, long y) {
+        return -Math.floorDiv(-x, y);
+    }
+}
@@ -0,0 +1,39 @@
+package SweetShop.SweetShopSystem;
+
+import java.util.Arrays;
+
+/**
+ * Reporting for the {@code *Benchmark} classes.
+ *
+ * Those classes are left out of the normal test run and only run with
+ * {@code mvn -Pbenchmark test} (add {@code -Dtest=SomeBenchmark} for one).
+ * They warm up, time plain loops and print what they measured; they assert
+ * nothing about timing, so compare numbers from the same machine only.
+ */
+public final class Benchmarks {
+
+    private Benchmarks() {
+    }
+
+    // Per-operation latencies in nanoseconds; sorts the array
+    public static void latency(String name, long[] nanos) {
+        Arrays.sort(nanos);
+        long total = 0;
+        for (long n : nanos) {
+            total += n;
+        }
+        System.out.printf("%-48s n=%d mean=%.2fus p50=%.2fus p99=%.2fus p99.9=%.2fus max=%.2fus%n",
+                name, nanos.length, total / 1_000.0 / nanos.length,
+                percentile(nanos, 0.50), percentile(nanos, 0.99), percentile(nanos, 0.999),
+                nanos[nanos.length - 1] / 1_000.0);
+    }
+
+    public static void throughput(String name, long operations, long elapsedNanos) {
+        System.out.printf("%-48s %d ops in %.1fms = %.0f ops/s%n",
+                name, operations, elapsedNanos / 1_000_000.0, operations * 1_000_000_000.0 / elapsedNanos);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        return sorted[Math.min(sorted.length - 1, (int) (sorted.length * p))] / 1_000.0;
+    }
+}
@@ -0,0 +1,104 @@
+package SweetShop.SweetShopSystem.controller;
+
+import SweetShop.SweetShopSystem.service.PaymentGatewayGuard;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * The whole app with a slow stub gateway and only a few Tomcat threads:
+ * while more orders than threads wait on the gateway, the catalog and
+ * login still answer, because order creation gives its request thread back.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "payment.gateway=stub",
+        "payment.gateway.stub.latency-ms=5000",
+        "payment.gateway.stub.jitter-ms=0",
+        "payment.gateway.timeout-ms=20000",
+        "server.tomcat.threads.max=4"
+})
+class PaymentGatewayIsolationTest {
+
+    private static final int ORDERS = 16;
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private PaymentGatewayGuard guard;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private final HttpClient http = HttpClient.newHttpClient();
+
+    @Test
+    @DisplayName("Catalog and auth stay responsive while orders wait on a slow gateway")
+    void catalogAndAuthStayResponsive() throws Exception {
+        String email = "buyer-" + UUID.randomUUID() + "@example.com";
+        Map<String, String> credentials = Map.of("email", email, "password", "secret123");
+        HttpResponse<String> registered = post("/api/auth/register", null,
+                Map.of("firstname", "Test", "lastname", "Buyer", "email", email, "password", "secret123"));
+        assertThat(registered.statusCode()).isEqualTo(200);
+        String token = objectMapper.readTree(registered.body()).get("token").asText();
+
+        int idle = guard.available();
+        List<CompletableFuture<HttpResponse<String>>> orders = new ArrayList<>();
+        for (int i = 0; i < ORDERS; i++) {
+            orders.add(http.sendAsync(request("/api/payment/create-order", token,
+                    Map.of("amount", 10.0, "currency", "INR")), HttpResponse.BodyHandlers.ofString()));
+        }
+        long deadline = System.currentTimeMillis() + 4_000;
+        while (guard.available() > idle - ORDERS && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertThat(guard.available()).as("all orders waiting on the gateway").isEqualTo(idle - ORDERS);
+
+        HttpResponse<String> catalog = http.send(HttpRequest.newBuilder(uri("/api/sweets")).GET().build(),
+                HttpResponse.BodyHandlers.ofString());
+        HttpResponse<String> login = post("/api/auth/login", null, credentials);
+
+        assertThat(catalog.statusCode()).isEqualTo(200);
+        assertThat(login.statusCode()).isEqualTo(200);
+        assertThat(orders).as("orders still waiting on the gateway").noneMatch(CompletableFuture::isDone);
+
+        for (CompletableFuture<HttpResponse<String>> order : orders) {
+            assertThat(order.get(30, TimeUnit.SECONDS).statusCode()).isEqualTo(200);
+        }
+    }
+
+    private HttpResponse<String> post(String path, String token, Object body) throws Exception {
+        return http.send(request(path, token, body), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpRequest request(String path, String token, Object body) throws Exception {
+        HttpRequest.Builder request = HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofByteArray(objectMapper.writeValueAsBytes(body)));
+        if (token != null) {
+            request.header("Authorization", "Bearer " + token);
+        }
+        return request.build();
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + port + path);
+    }
+}
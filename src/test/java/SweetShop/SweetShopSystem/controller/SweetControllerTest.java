@@ -0,0 +1,113 @@
+package SweetShop.SweetShopSystem.controller;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.service.*;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.web.context.request.ServletWebRequest;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.Mockito.*;
+
+/**
+ * Conditional GETs: a client holding the current catalog ETag gets 304
+ * without the listing being serialized or the search being run.
+ */
+class SweetControllerTest {
+
+    private SweetService sweetService;
+    private SweetCatalog sweetCatalog;
+    private SweetCatalogJson sweetCatalogJson;
+    private SweetController controller;
+
+    @BeforeEach
+    void setUp() {
+        sweetService = mock(SweetService.class);
+        sweetCatalog = mock(SweetCatalog.class);
+        sweetCatalogJson = mock(SweetCatalogJson.class);
+        controller = new SweetController(sweetService, sweetCatalog, sweetCatalogJson, mock(SweetSuggester.class),
+                mock(SweetImportService.class), mock(SweetChangeStream.class), new ObjectMapper());
+        when(sweetCatalog.etag()).thenAnswer(invocation -> "\"boot-" + sweetCatalog.version() + "\"");
+        when(sweetCatalog.etag(anyLong())).thenAnswer(invocation -> "\"boot-" + invocation.getArgument(0) + "\"");
+        when(sweetCatalog.version()).thenReturn(1L);
+        when(sweetCatalogJson.body()).thenReturn(new SweetCatalogJson.Body(1, "[]".getBytes(), new byte[]{31, -117}));
+    }
+
+    @Test
+    @DisplayName("The listing is tagged, gzipped on request, and 304 while the catalog is unchanged")
+    void listingEtag() {
+        ResponseEntity<byte[]> first = controller.getAll(null, request(null));
+        assertThat(first.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(first.getHeaders().getETag()).isEqualTo("\"boot-1\"");
+        assertThat(first.getBody()).isEqualTo("[]".getBytes());
+
+        ResponseEntity<byte[]> gzipped = controller.getAll("gzip, deflate", request(null));
+        assertThat(gzipped.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isEqualTo("gzip");
+        assertThat(gzipped.getBody()).containsExactly(31, -117);
+
+        clearInvocations(sweetCatalogJson);
+        ResponseEntity<byte[]> current = controller.getAll(null, request("\"boot-1\""));
+        assertThat(current.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        assertThat(current.getBody()).isNull();
+        verify(sweetCatalogJson, never()).body();
+
+        // Any catalog write bumps the version, and the old tag stops matching
+        when(sweetCatalog.version()).thenReturn(2L);
+        when(sweetCatalogJson.body()).thenReturn(new SweetCatalogJson.Body(2, "[{}]".getBytes(), new byte[0]));
+        ResponseEntity<byte[]> changed = controller.getAll(null, request("\"boot-1\""));
+        assertThat(changed.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(changed.getHeaders().getETag()).isEqualTo("\"boot-2\"");
+    }
+
+    @Test
+    @DisplayName("gzip is sent only when Accept-Encoding allows it with a non-zero q-value")
+    void acceptEncoding() {
+        assertThat(SweetController.acceptsGzip("gzip, deflate")).isTrue();
+        assertThat(SweetController.acceptsGzip("deflate, GZIP;q=0.5")).isTrue();
+        assertThat(SweetController.acceptsGzip("*")).isTrue();
+        assertThat(SweetController.acceptsGzip(null)).isFalse();
+        assertThat(SweetController.acceptsGzip("gzip;q=0")).isFalse();
+        assertThat(SweetController.acceptsGzip("gzip;q=0.0, *")).isFalse();
+        assertThat(SweetController.acceptsGzip("x-notgzip, br")).isFalse();
+        assertThat(SweetController.acceptsGzip("*;q=0")).isFalse();
+
+        ResponseEntity<byte[]> refused = controller.getAll("gzip;q=0, identity", request(null));
+        assertThat(refused.getHeaders().getFirst(HttpHeaders.CONTENT_ENCODING)).isNull();
+        assertThat(refused.getBody()).isEqualTo("[]".getBytes());
+    }
+
+    @Test
+    @DisplayName("Search answers 304 for a current tag without searching")
+    void searchEtag() {
+        Sweet ladoo = Sweet.builder().id(1L).name("Ladoo").category("Ladoo").price(10.0).quantity(3).build();
+        when(sweetService.search(any(), any(), any(), any(), anyBoolean())).thenReturn(List.of(ladoo));
+
+        ResponseEntity<List<Sweet>> first = controller.search("lad", null, null, null, false, request(null));
+        assertThat(first.getBody()).containsExactly(ladoo);
+        String etag = first.getHeaders().getETag();
+
+        ResponseEntity<List<Sweet>> again = controller.search("lad", null, null, null, false, request(etag));
+        assertThat(again.getStatusCode()).isEqualTo(HttpStatus.NOT_MODIFIED);
+        verify(sweetService, times(1)).search(any(), any(), any(), any(), anyBoolean());
+    }
+
+    private static ServletWebRequest request(String ifNoneMatch) {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/sweets");
+        if (ifNoneMatch != null) {
+            request.addHeader(HttpHeaders.IF_NONE_MATCH, ifNoneMatch);
+        }
+        return new ServletWebRequest(request, new MockHttpServletResponse());
+    }
+}
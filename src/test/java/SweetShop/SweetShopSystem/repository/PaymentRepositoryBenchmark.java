@@ -0,0 +1,85 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Cost of an order-id lookup and of a conditional CREATED -> PAID transition
+ * against 200k seeded payments in H2.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentRepositoryBenchmark {
+
+    private static final int ROWS = 200_000;
+    private static final int SAMPLES = 10_000;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM payments");
+    }
+
+    @Test
+    void largeTable() {
+        seed();
+        for (int i = 1; i <= 5_000; i++) {
+            paymentRepository.findByRazorpayOrderId("order_" + i);
+        }
+
+        long[] lookups = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String orderId = "order_" + (ROWS - i);
+            long began = System.nanoTime();
+            paymentRepository.findByRazorpayOrderId(orderId);
+            lookups[i] = System.nanoTime() - began;
+        }
+        long[] transitions = new long[SAMPLES];
+        for (int i = 0; i < SAMPLES; i++) {
+            String orderId = "order_" + (ROWS - i);
+            long began = System.nanoTime();
+            int updated = paymentRepository.markPaid(orderId, "pay_" + (ROWS - i), "sig");
+            transitions[i] = System.nanoTime() - began;
+            if (updated != 1) {
+                throw new IllegalStateException(orderId + " was not marked paid");
+            }
+        }
+
+        Benchmarks.latency("lookup by order id, 200k rows", lookups);
+        Benchmarks.latency("CREATED -> PAID, 200k rows", transitions);
+    }
+
+    private void seed() {
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{"order_" + i, 1L, 1, 10.0, PaymentStatus.CREATED.name(), false, now});
+            if (batch.size() == 5_000) {
+                insert(batch);
+                batch.clear();
+            }
+        }
+        insert(batch);
+    }
+
+    private void insert(List<Object[]> batch) {
+        jdbcTemplate.batchUpdate("INSERT INTO payments (razorpay_order_id, sweet_id, quantity, amount, status, " +
+                "stock_reserved, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
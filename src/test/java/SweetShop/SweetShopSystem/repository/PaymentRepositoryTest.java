@@ -0,0 +1,77 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Status transitions against a small seeded payments table in H2. Lookups and
+ * conditional transitions must use the order-id index, so the plan is checked;
+ * the cost on a large table is measured by PaymentRepositoryBenchmark.
+ */
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentRepositoryTest {
+
+    private static final int ROWS = 1_000;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void cleanUp() {
+        jdbcTemplate.update("DELETE FROM payments");
+    }
+
+    @Test
+    @DisplayName("Transitions are conditional and use the order-id index")
+    void conditionalTransitions() {
+        seed();
+
+        // CREATED -> PAID once; a second payment or a late expiry changes nothing
+        assertThat(paymentRepository.markPaid("order_1", "pay_1", "sig")).isEqualTo(1);
+        assertThat(paymentRepository.markPaid("order_1", "pay_1b", "sig")).isZero();
+        assertThat(paymentRepository.expireIfUnpaid("order_1")).isZero();
+        assertThat(paymentRepository.findByRazorpayOrderId("order_1").getStatus()).isEqualTo(PaymentStatus.PAID);
+
+        assertThat(paymentRepository.expireIfUnpaid("order_2")).isEqualTo(1);
+        assertThat(paymentRepository.markPaid("order_2", "pay_2", "sig")).isZero();
+        assertThatThrownBy(() -> paymentRepository.transition("order_2", PaymentStatus.FAILED, PaymentStatus.PAID))
+                .isInstanceOf(RuntimeException.class);
+
+        assertThat(plan("SELECT * FROM payments WHERE razorpay_order_id = 'order_7'"))
+                .containsIgnoringCase("ux_payments_order_id");
+        assertThat(plan("UPDATE payments SET status = 'PAID' WHERE razorpay_order_id = 'order_7' AND status = 'CREATED'"))
+                .containsIgnoringCase("ux_payments_order_id");
+    }
+
+    private String plan(String sql) {
+        return String.join("\n", jdbcTemplate.queryForList("EXPLAIN " + sql, String.class));
+    }
+
+    private void seed() {
+        long now = System.currentTimeMillis();
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 1; i <= ROWS; i++) {
+            batch.add(new Object[]{"order_" + i, 1L, 1, 10.0, PaymentStatus.CREATED.name(), false, now});
+        }
+        jdbcTemplate.batchUpdate("INSERT INTO payments (razorpay_order_id, sweet_id, quantity, amount, status, " +
+                "stock_reserved, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)", batch);
+    }
+}
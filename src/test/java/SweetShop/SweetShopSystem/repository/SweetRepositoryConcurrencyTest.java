@@ -0,0 +1,151 @@
+package SweetShop.SweetShopSystem.repository;
+
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.service.*;
+
+import com.cloudinary.Cloudinary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Stress test for SweetService.purchaseSweet (the atomic purchase UPDATE)
+ * against H2, including its journal and catalog side effects.
+ * Runs outside a test transaction so every thread sees committed data.
+ */
+@DataJpaTest
+@Import({
+        SweetService.class, SweetBatchRepository.class, SweetCatalog.class, SweetNameIndex.class,
+        SweetColumnStore.class, SweetSearchCache.class, StockLedger.class, InventoryJournal.class,
+        InventoryBatchRepository.class, SweetStockShards.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetRepositoryConcurrencyTest {
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @Autowired
+    private SweetCatalog sweetCatalog;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+        sweetCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("Concurrent purchases never oversell, and every sale is journaled and published")
+    void concurrentPurchasesNeverOversell() throws Exception {
+        // Given: 500 in stock and 16 buyers trying 100 times each
+        int stock = 500;
+        int threads = 16;
+        int attemptsPerThread = 100;
+        Long id = newSweet("Kaju Katli", stock);
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < attemptsPerThread; i++) {
+                    try {
+                        sweetService.purchaseSweet(id, 1);
+                        sold.incrementAndGet();
+                    } catch (RuntimeException e) {
+                        assertThat(e).hasMessage("Not enough stock");
+                        rejected.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        // When
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        // Then: exactly the stock was sold and nothing went negative
+        assertThat(sold.get()).isEqualTo(stock);
+        assertThat(rejected.get()).isEqualTo(threads * attemptsPerThread - stock);
+        assertThat(sweetRepository.findById(id).orElseThrow().getQuantity()).isZero();
+        assertThat(sweetCatalog.findById(id).orElseThrow().getQuantity()).isZero();
+
+        List<InventoryEvent> purchases = purchases(id);
+        assertThat(purchases).hasSize(stock);
+        assertThat(purchases).extracting(InventoryEvent::getQuantityAfter)
+                .doesNotHaveDuplicates()
+                .allMatch(after -> after >= 0 && after < stock);
+    }
+
+    @Test
+    @DisplayName("Purchase larger than the remaining stock is rejected without side effects")
+    void purchaseLargerThanStockIsRejected() {
+        Long id = newSweet("Rasmalai", 3);
+        long version = sweetCatalog.version();
+
+        assertThatThrownBy(() -> sweetService.purchaseSweet(id, 4))
+                .isInstanceOf(RuntimeException.class)
+                .hasMessage("Not enough stock");
+
+        assertThat(sweetRepository.findById(id).orElseThrow().getQuantity()).isEqualTo(3);
+        assertThat(sweetCatalog.findById(id).orElseThrow().getQuantity()).isEqualTo(3);
+        assertThat(sweetCatalog.version()).isEqualTo(version);
+        assertThat(purchases(id)).isEmpty();
+
+        assertThat(sweetService.purchaseSweet(id, 3).getQuantity()).isZero();
+        assertThat(purchases(id)).extracting(InventoryEvent::getDelta).containsExactly(-3);
+    }
+
+    // Saved outside the service, so the catalog is reloaded to include it
+    private Long newSweet(String name, int quantity) {
+        Long id = sweetRepository.save(Sweet.builder()
+                .name(name)
+                .category("Barfi")
+                .price(20.0)
+                .quantity(quantity)
+                .build()).getId();
+        sweetCatalog.invalidate();
+        sweetCatalog.findById(id).orElseThrow();
+        return id;
+    }
+
+    private List<InventoryEvent> purchases(Long id) {
+        return eventRepository.findAll().stream()
+                .filter(event -> event.getSweetId().equals(id) && event.getType() == InventoryEventType.PURCHASE)
+                .toList();
+    }
+}
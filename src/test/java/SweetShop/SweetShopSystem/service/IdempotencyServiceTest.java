@@ -0,0 +1,123 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.IdempotencyRecord;
+import SweetShop.SweetShopSystem.repository.IdempotencyRecordRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class IdempotencyServiceTest {
+
+    private IdempotencyRecordRepository repository;
+    private IdempotencyService service;
+
+    @BeforeEach
+    void setUp() {
+        repository = mock(IdempotencyRecordRepository.class);
+        service = new IdempotencyService(repository);
+        ReflectionTestUtils.setField(service, "ttlMillis", 60_000L);
+        ReflectionTestUtils.setField(service, "cacheSize", 2);
+    }
+
+    @Test
+    @DisplayName("Concurrent and later duplicates share one execution")
+    void duplicatesRunOnce() {
+        AtomicInteger executions = new AtomicInteger();
+        CompletableFuture<ResponseEntity<String>> gateway = new CompletableFuture<>();
+        String scope = IdempotencyService.scope("alice@example.com", "create-order", "k1");
+
+        CompletableFuture<ResponseEntity<String>> first = service.execute(scope, "h1", () -> {
+            executions.incrementAndGet();
+            return gateway;
+        });
+        CompletableFuture<ResponseEntity<String>> inFlight = service.execute(scope, "h1", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok("second"));
+        });
+        gateway.complete(ResponseEntity.ok("{\"id\":\"order_1\"}"));
+
+        assertThat(first.join().getBody()).isEqualTo("{\"id\":\"order_1\"}");
+        assertThat(inFlight.join().getBody()).isEqualTo("{\"id\":\"order_1\"}");
+        assertThat(service.execute(scope, "h1", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok("third"));
+        }).join().getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        assertThat(executions).hasValue(1);
+        verify(repository).save(any(IdempotencyRecord.class));
+
+        // Another user's identical key is a different request
+        String other = IdempotencyService.scope("bob@example.com", "create-order", "k1");
+        service.execute(other, "h1", () -> {
+            executions.incrementAndGet();
+            return CompletableFuture.completedFuture(ResponseEntity.ok("bob"));
+        }).join();
+        assertThat(executions).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("Server errors and 429 are not remembered; evicted responses come back from the database")
+    void serverErrorsRetryAndDatabaseFallback() {
+        String scope = IdempotencyService.scope("alice@example.com", "create-order", "k2");
+        service.execute(scope, "h1", () -> CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body("busy"))).join();
+        service.execute(scope, "h1", () -> CompletableFuture.completedFuture(
+                ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).body("slow down"))).join();
+        assertThat(service.execute(scope, "h1", () -> CompletableFuture.completedFuture(ResponseEntity.ok("done")))
+                .join().getBody()).isEqualTo("done");
+
+        // A client error a retry can't change is replayed
+        String rejected = IdempotencyService.scope("alice@example.com", "create-order", "k5");
+        service.execute(rejected, "h1", () -> CompletableFuture.completedFuture(
+                ResponseEntity.badRequest().body("Error: Not enough stock"))).join();
+        assertThat(service.execute(rejected, "h1", () -> CompletableFuture.completedFuture(ResponseEntity.ok("done")))
+                .join().getBody()).isEqualTo("Error: Not enough stock");
+
+        String stored = IdempotencyService.scope("alice@example.com", "verify-payment", "k3");
+        when(repository.findById(stored)).thenReturn(Optional.of(
+                new IdempotencyRecord(stored, 200, "Payment Verified", "h3", System.currentTimeMillis() + 60_000)));
+        ResponseEntity<String> replayed = service.execute(stored, "h3",
+                () -> CompletableFuture.completedFuture(ResponseEntity.ok("again"))).join();
+        assertThat(replayed.getBody()).isEqualTo("Payment Verified");
+    }
+
+    @Test
+    @DisplayName("A reused key with a different body is refused with 422")
+    void differentBodyIsRefused() {
+        String scope = IdempotencyService.scope("alice@example.com", "create-order", "k4");
+        String body = IdempotencyService.hash("{\"amount\":100}".getBytes());
+        String otherBody = IdempotencyService.hash("{\"amount\":900}".getBytes());
+        CompletableFuture<ResponseEntity<String>> gateway = new CompletableFuture<>();
+
+        CompletableFuture<ResponseEntity<String>> first = service.execute(scope, body, () -> gateway);
+        // While the first is running...
+        assertThat(service.execute(scope, otherBody, () -> CompletableFuture.completedFuture(ResponseEntity.ok("x")))
+                .join().getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        gateway.complete(ResponseEntity.ok("{\"id\":\"order_4\"}"));
+        assertThat(first.join().getBody()).isEqualTo("{\"id\":\"order_4\"}");
+
+        // ...and after it is stored
+        assertThat(service.execute(scope, otherBody, () -> CompletableFuture.completedFuture(ResponseEntity.ok("x")))
+                .join().getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+        assertThat(service.execute(scope, body, () -> CompletableFuture.completedFuture(ResponseEntity.ok("x")))
+                .join().getBody()).isEqualTo("{\"id\":\"order_4\"}");
+
+        // From the database too
+        String stored = IdempotencyService.scope("alice@example.com", "verify-payment", "k5");
+        when(repository.findById(stored)).thenReturn(Optional.of(
+                new IdempotencyRecord(stored, 200, "Payment Verified", body, System.currentTimeMillis() + 60_000)));
+        assertThat(service.execute(stored, otherBody, () -> CompletableFuture.completedFuture(ResponseEntity.ok("x")))
+                .join().getStatusCode()).isEqualTo(HttpStatus.UNPROCESSABLE_ENTITY);
+    }
+}
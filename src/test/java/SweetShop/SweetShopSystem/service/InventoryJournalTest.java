@@ -0,0 +1,105 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.InventorySnapshot;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.InventorySnapshotRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.doAnswer;
+
+/**
+ * Snapshots are compacted on the journal's own thread (no @EnableScheduling
+ * here), and stock rebuilt from snapshot plus tail matches the events.
+ */
+@DataJpaTest
+@Import({InventoryJournal.class, InventoryBatchRepository.class})
+@TestPropertySource(properties = {
+        "inventory.snapshot.interval-ms=50",
+        "inventory.snapshot.safety-lag-ms=0"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class InventoryJournalTest {
+
+    @Autowired
+    private InventoryJournal journal;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @Autowired
+    private InventorySnapshotRepository snapshotRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @SpyBean
+    private InventoryBatchRepository batchRepository;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        jdbcTemplate.update("DELETE FROM inventory_snapshot_item");
+        snapshotRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Compaction runs on its own executor and keeps the rebuild exact")
+    void compactsOnItsOwnThread() throws Exception {
+        Set<String> threads = ConcurrentHashMap.newKeySet();
+        doAnswer(invocation -> {
+            threads.add(Thread.currentThread().getName());
+            return invocation.callRealMethod();
+        }).when(batchRepository).insertSnapshotItems(anyLong(), anyMap());
+
+        journal.record(1L, 10, 10, InventoryEventType.CREATE);
+        journal.record(2L, 5, 5, InventoryEventType.CREATE);
+        journal.record(1L, -3, 7, InventoryEventType.PURCHASE);
+        long first = awaitSnapshotPast(eventRepository.findMaxId());
+
+        journal.recordAll(List.of(
+                InventoryJournal.event(2L, 4, null, InventoryEventType.RELEASE),
+                InventoryJournal.event(1L, -7, 0, InventoryEventType.DELETE)));
+        assertThat(journal.rebuild()).containsExactly(Map.entry(2L, 9));
+
+        awaitSnapshotPast(eventRepository.findMaxId());
+        assertThat(threads).containsOnly("inventory-snapshot");
+        assertThat(journal.rebuild()).containsExactly(Map.entry(2L, 9));
+        // keep=2: the newest snapshot and one before it
+        assertThat(snapshotRepository.count()).isLessThanOrEqualTo(2);
+        assertThat(snapshotRepository.findTopByOrderByIdDesc().orElseThrow().getId()).isGreaterThan(first);
+    }
+
+    // Waits for a snapshot that covers every event up to the given id; returns its id
+    private long awaitSnapshotPast(long eventId) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (System.currentTimeMillis() < deadline) {
+            InventorySnapshot latest = snapshotRepository.findTopByOrderByIdDesc().orElse(null);
+            if (latest != null && latest.getLastEventId() >= eventId) {
+                return latest.getId();
+            }
+            Thread.sleep(20);
+        }
+        throw new AssertionError("No snapshot covered event " + eventId);
+    }
+}
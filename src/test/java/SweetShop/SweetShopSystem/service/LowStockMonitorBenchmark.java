@@ -0,0 +1,128 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.LowStockThresholdRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import com.cloudinary.Cloudinary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * What the low-stock check adds to a purchase: single-threaded purchase
+ * latency with the monitor listening, next to the monitor's own cost per
+ * catalog change for the same kind of change (no threshold crossed).
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({
+        SweetService.class, SweetBatchRepository.class, SweetCatalog.class, SweetNameIndex.class,
+        SweetColumnStore.class, SweetSearchCache.class, StockLedger.class, InventoryJournal.class,
+        InventoryBatchRepository.class, SweetStockShards.class, LowStockMonitor.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class LowStockMonitorBenchmark {
+
+    private static final int PURCHASES = 5_000;
+    private static final int CHECKS_PER_SAMPLE = 1_000;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @Autowired
+    private LowStockThresholdRepository thresholdRepository;
+
+    @Autowired
+    private SweetCatalog sweetCatalog;
+
+    @Autowired
+    private LowStockMonitor lowStockMonitor;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        thresholdRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+        sweetCatalog.invalidate();
+    }
+
+    @Test
+    void overheadOnPurchase() {
+        Sweet sweet = sweetRepository.save(Sweet.builder()
+                .name("Ladoo").category("Ladoo").price(10.0).quantity(1_000_000).build());
+        sweetCatalog.invalidate();
+        lowStockMonitor.setThreshold(sweet.getId(), 10);
+
+        for (int i = 0; i < 2_000; i++) {
+            sweetService.purchaseSweet(sweet.getId(), 1);
+        }
+        long[] purchases = new long[PURCHASES];
+        for (int i = 0; i < PURCHASES; i++) {
+            long began = System.nanoTime();
+            sweetService.purchaseSweet(sweet.getId(), 1);
+            purchases[i] = System.nanoTime() - began;
+        }
+
+        // The same change a purchase publishes, quantities well above the threshold
+        List<SweetCatalogChangedEvent> events = List.of(
+                change(sweet, 900, 899), change(sweet, 899, 898), change(sweet, 898, 897));
+        for (int i = 0; i < 3_000_000; i++) {
+            lowStockMonitor.onCatalogChanged(events.get(i % 3));
+        }
+        long[] checks = new long[5_000];
+        for (int s = 0; s < checks.length; s++) {
+            long began = System.nanoTime();
+            for (int i = 0; i < CHECKS_PER_SAMPLE; i++) {
+                lowStockMonitor.onCatalogChanged(events.get(i % 3));
+            }
+            checks[s] = (System.nanoTime() - began) / CHECKS_PER_SAMPLE;
+        }
+        if (!lowStockMonitor.alerts(null).isEmpty()) {
+            throw new IllegalStateException("No threshold was crossed, yet an alert was raised");
+        }
+
+        double purchaseMean = mean(purchases);
+        double checkMean = mean(checks);
+        Benchmarks.latency("purchase, monitor listening", purchases);
+        Benchmarks.latency("low-stock check per change", checks);
+        System.out.printf("low-stock check: %.1f ns per change = %.4f%% of a %.1fus purchase%n",
+                checkMean, checkMean * 100 / purchaseMean, purchaseMean / 1_000);
+    }
+
+    private static SweetCatalogChangedEvent change(Sweet sweet, int before, int after) {
+        Sweet old = SweetCatalog.copyOf(sweet);
+        old.setQuantity(before);
+        Sweet now = SweetCatalog.copyOf(sweet);
+        now.setQuantity(after);
+        return new SweetCatalogChangedEvent(null, false,
+                List.of(new SweetCatalogChangedEvent.Change(sweet.getId(), old, now)));
+    }
+
+    private static double mean(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += value;
+        }
+        return total / (double) values.length;
+    }
+}
@@ -0,0 +1,69 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.LowStockThresholdRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class LowStockMonitorTest {
+
+    private LowStockMonitor monitor;
+
+    @BeforeEach
+    void setUp() {
+        monitor = new LowStockMonitor(mock(LowStockThresholdRepository.class));
+        ReflectionTestUtils.setField(monitor, "defaultThreshold", 5);
+        ReflectionTestUtils.setField(monitor, "categoryThresholds", "Barfi:10");
+        ReflectionTestUtils.setField(monitor, "queueSize", 100);
+        monitor.load();
+    }
+
+    @Test
+    @DisplayName("Only threshold crossings raise alerts")
+    void onlyCrossingsRaiseAlerts() {
+        Sweet ladoo = sweet(1L, "Ladoo", 8);
+
+        change(ladoo, 8, 6);   // still above 5
+        change(ladoo, 6, 5);   // LOW
+        change(ladoo, 5, 3);   // still low
+        change(ladoo, 3, 0);   // SOLD_OUT
+        change(ladoo, 0, 20);  // RECOVERED
+        change(sweet(2L, "Kaju Katli", 12), 12, 9);  // Barfi threshold is 10: LOW
+
+        assertThat(monitor.alerts(null)).extracting("type")
+                .containsExactly(LowStockMonitor.LOW, LowStockMonitor.SOLD_OUT,
+                        LowStockMonitor.RECOVERED, LowStockMonitor.LOW);
+        assertThat(monitor.alerts(2L)).hasSize(2);
+    }
+
+    private void change(Sweet sweet, int before, int after) {
+        monitor.onCatalogChanged(event(sweet, before, after));
+    }
+
+    private static SweetCatalogChangedEvent event(Sweet sweet, int before, int after) {
+        Sweet old = SweetCatalog.copyOf(sweet);
+        old.setQuantity(before);
+        Sweet now = SweetCatalog.copyOf(sweet);
+        now.setQuantity(after);
+        return new SweetCatalogChangedEvent(null, false,
+                List.of(new SweetCatalogChangedEvent.Change(sweet.getId(), old, now)));
+    }
+
+    private static Sweet sweet(Long id, String name, int quantity) {
+        return Sweet.builder()
+                .id(id)
+                .name(name)
+                .category(name.equals("Kaju Katli") ? "Barfi" : "Ladoo")
+                .price(10.0)
+                .quantity(quantity)
+                .build();
+    }
+}
@@ -0,0 +1,116 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * The guard in front of a slow stub gateway: excess orders are refused at
+ * once, slow calls time out, and repeated timeouts or provider failures open
+ * the breaker, while requests the provider rejects do not.
+ */
+class PaymentGatewayGuardTest {
+
+    private StubPaymentGateway gateway;
+    private PaymentGatewayGuard guard;
+
+    @BeforeEach
+    void setUp() {
+        gateway = new StubPaymentGateway();
+        ReflectionTestUtils.setField(gateway, "jitterMillis", 0L);
+        ReflectionTestUtils.setField(gateway, "failureRate", 0.0);
+        guard = new PaymentGatewayGuard(4, 300, 3, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        guard.stop();
+    }
+
+    @Test
+    @DisplayName("Orders beyond the bulkhead are refused without waiting")
+    void bulkheadRefusesExcess() throws Exception {
+        ReflectionTestUtils.setField(gateway, "latencyMillis", 200L);
+
+        List<CompletableFuture<JSONObject>> orders = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            orders.add(guard.submit(() -> guard.call(() -> gateway.createOrder(request()))));
+        }
+
+        int created = 0;
+        int refused = 0;
+        for (CompletableFuture<JSONObject> order : orders) {
+            try {
+                assertThat(order.get().getString("id")).startsWith("order_stub_");
+                created++;
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(RejectedExecutionException.class);
+                refused++;
+            }
+        }
+        assertThat(created).isEqualTo(4);
+        assertThat(refused).isEqualTo(6);
+        assertThat(guard.available()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("Slow calls time out and open the breaker")
+    void timeoutsOpenTheBreaker() throws Exception {
+        ReflectionTestUtils.setField(gateway, "latencyMillis", 2_000L);
+
+        for (int i = 0; i < 3; i++) {
+            long began = System.nanoTime();
+            CompletableFuture<JSONObject> order = guard.submit(() -> guard.call(() -> gateway.createOrder(request())));
+            try {
+                order.get();
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(TimeoutException.class);
+            }
+            assertThat((System.nanoTime() - began) / 1_000_000).isLessThan(1_500);
+        }
+
+        assertThat(guard.isOpen()).isTrue();
+        CompletableFuture<JSONObject> refused = guard.submit(() -> gateway.createOrder(request()));
+        assertThat(refused).isCompletedExceptionally();
+    }
+
+    @Test
+    @DisplayName("Requests the provider rejects don't count towards the breaker; provider failures do")
+    void rejectionsKeepTheBreakerClosed() {
+        for (int i = 0; i < 5; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new PaymentGateway.OrderRejectedException("BAD_REQUEST_ERROR:amount too small", null);
+            })).isInstanceOf(PaymentGateway.OrderRejectedException.class);
+        }
+        assertThat(guard.isOpen()).isFalse();
+
+        for (int i = 0; i < 3; i++) {
+            assertThatThrownBy(() -> guard.call(() -> {
+                throw new IOException("connection reset");
+            })).isInstanceOf(IOException.class);
+        }
+        assertThat(guard.isOpen()).isTrue();
+    }
+
+    private static JSONObject request() throws Exception {
+        JSONObject request = new JSONObject();
+        request.put("amount", 1000);
+        request.put("currency", "INR");
+        request.put("receipt", "txn_test");
+        return request;
+    }
+}
@@ -0,0 +1,96 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Cost of one checkout signature check: PaymentSignatureVerifier (per-thread
+ * Mac, in-place hex compare) next to the textbook version that builds a Mac,
+ * hex-encodes the digest and compares strings on every call. Latencies are
+ * per call, averaged over batches of 1000; throughput uses 8 threads.
+ */
+class PaymentSignatureVerifierBenchmark {
+
+    private static final String SECRET = "test_secret";
+    private static final String ORDER_ID = "order_NhX2k9pQ0bY7aZ";
+    private static final String PAYMENT_ID = "pay_NhX3mD4tL8cWqE";
+    private static final int BATCH = 1_000;
+
+    private final PaymentSignatureVerifier verifier = new PaymentSignatureVerifier(SECRET);
+
+    @Test
+    void verify() throws Exception {
+        String signature = naiveSign(ORDER_ID, PAYMENT_ID);
+
+        measure("verifier", () -> verifier.verify(ORDER_ID, PAYMENT_ID, signature));
+        measure("Mac per call, hex string compare", () -> naiveVerify(ORDER_ID, PAYMENT_ID, signature));
+    }
+
+    private static void measure(String label, BooleanSupplier check) throws Exception {
+        for (int i = 0; i < 200_000; i++) {
+            require(check);
+        }
+        long[] nanos = new long[2_000];
+        for (int s = 0; s < nanos.length; s++) {
+            long began = System.nanoTime();
+            for (int i = 0; i < BATCH; i++) {
+                require(check);
+            }
+            nanos[s] = (System.nanoTime() - began) / BATCH;
+        }
+        Benchmarks.latency(label, nanos);
+
+        int threads = 8;
+        int perThread = 200_000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<?>> workers = new ArrayList<>();
+        long began = System.nanoTime();
+        for (int t = 0; t < threads; t++) {
+            workers.add(pool.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    require(check);
+                }
+                return null;
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        Benchmarks.throughput(label + ", " + threads + " threads", (long) threads * perThread, System.nanoTime() - began);
+        pool.shutdown();
+    }
+
+    private static void require(BooleanSupplier check) {
+        if (!check.getAsBoolean()) {
+            throw new IllegalStateException("A valid signature was rejected");
+        }
+    }
+
+    private static boolean naiveVerify(String orderId, String paymentId, String signature) {
+        try {
+            return MessageDigest.isEqual(naiveSign(orderId, paymentId).getBytes(StandardCharsets.UTF_8),
+                    signature.getBytes(StandardCharsets.UTF_8));
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String naiveSign(String orderId, String paymentId) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal((orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8)));
+    }
+}
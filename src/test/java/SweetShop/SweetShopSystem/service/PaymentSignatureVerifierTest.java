@@ -0,0 +1,41 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PaymentSignatureVerifierTest {
+
+    private static final String SECRET = "test_secret";
+
+    private final PaymentSignatureVerifier verifier = new PaymentSignatureVerifier(SECRET);
+
+    @Test
+    @DisplayName("Accepts Razorpay's signature and rejects anything else")
+    void verifiesSignature() throws Exception {
+        String signature = sign("order_123", "pay_456");
+
+        assertThat(verifier.verify("order_123", "pay_456", signature)).isTrue();
+        assertThat(verifier.verify("order_123", "pay_456", signature.toUpperCase())).isTrue();
+        assertThat(verifier.verify("order_123", "pay_457", signature)).isFalse();
+        assertThat(verifier.verify("order_124", "pay_456", signature)).isFalse();
+        assertThat(verifier.verify("order_123", "pay_456", signature.substring(2))).isFalse();
+        assertThat(verifier.verify("order_123", "pay_456", "zz" + signature.substring(2))).isFalse();
+        assertThat(verifier.verify("order_123", "pay_456", null)).isFalse();
+        // A failed check leaves the thread's Mac clean for the next one
+        assertThat(verifier.verify("order_123", "pay_\u00e9", signature)).isFalse();
+        assertThat(verifier.verify("order_123", "pay_456", signature)).isTrue();
+    }
+
+    private static String sign(String orderId, String paymentId) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal((orderId + "|" + paymentId).getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,129 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Payment;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
+import SweetShop.SweetShopSystem.repository.PaymentRepository;
+import SweetShop.SweetShopSystem.repository.WebhookEventRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.util.HexFormat;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+/**
+ * Locally signed Razorpay webhooks through the queue and the batch consumer.
+ */
+@DataJpaTest(properties = "razorpay.webhook-secret=" + PaymentWebhookServiceTest.SECRET)
+@Import(PaymentWebhookService.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class PaymentWebhookServiceTest {
+
+    static final String SECRET = "whsec_test";
+
+    @Autowired
+    private PaymentWebhookService webhookService;
+
+    @Autowired
+    private PaymentRepository paymentRepository;
+
+    @Autowired
+    private WebhookEventRepository webhookEventRepository;
+
+    @MockBean
+    private StockReservationService stockReservationService;
+
+    @AfterEach
+    void cleanUp() {
+        webhookEventRepository.deleteAll();
+        paymentRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Signed events are applied once; forged and repeated ones change nothing")
+    void appliesSignedEventsOnce() throws Exception {
+        paymentRepository.save(order("order_A"));
+
+        byte[] captured = event("payment.captured", "pay_A", "order_A");
+        byte[] forged = event("payment.captured", "pay_X", "order_A");
+
+        assertThat(webhookService.accept(captured, sign(captured), "evt_1")).isEqualTo(PaymentWebhookService.Result.ACCEPTED);
+        assertThat(webhookService.accept(captured, sign(captured), "evt_1")).isEqualTo(PaymentWebhookService.Result.DUPLICATE);
+        assertThat(webhookService.accept(forged, sign(captured), "evt_2")).isEqualTo(PaymentWebhookService.Result.INVALID_SIGNATURE);
+        byte[] junk = "not json".getBytes(StandardCharsets.UTF_8);
+        assertThat(webhookService.accept(junk, sign(junk), "evt_3")).isEqualTo(PaymentWebhookService.Result.MALFORMED);
+
+        awaitStored(1);
+
+        Payment paid = paymentRepository.findByRazorpayOrderId("order_A");
+        assertThat(paid.getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(paid.getRazorpayPaymentId()).isEqualTo("pay_A");
+        assertThat(webhookEventRepository.count()).isEqualTo(1);
+        verify(stockReservationService, timeout(5_000)).confirm("order_A");
+    }
+
+    @Test
+    @DisplayName("A failed attempt leaves the order open for the customer's retry")
+    void failedAttemptThenCapture() throws Exception {
+        paymentRepository.save(order("order_B"));
+
+        byte[] failed = event("payment.failed", "pay_B1", "order_B");
+        assertThat(webhookService.accept(failed, sign(failed), "evt_b1")).isEqualTo(PaymentWebhookService.Result.ACCEPTED);
+        awaitStored(1);
+
+        assertThat(paymentRepository.findByRazorpayOrderId("order_B").getStatus()).isEqualTo(PaymentStatus.CREATED);
+        verifyNoInteractions(stockReservationService);
+
+        byte[] captured = event("payment.captured", "pay_B2", "order_B");
+        assertThat(webhookService.accept(captured, sign(captured), "evt_b2")).isEqualTo(PaymentWebhookService.Result.ACCEPTED);
+        awaitStored(2);
+
+        Payment paid = paymentRepository.findByRazorpayOrderId("order_B");
+        assertThat(paid.getStatus()).isEqualTo(PaymentStatus.PAID);
+        assertThat(paid.getRazorpayPaymentId()).isEqualTo("pay_B2");
+        verify(stockReservationService, timeout(5_000)).confirm("order_B");
+        verifyNoMoreInteractions(stockReservationService);
+    }
+
+    private void awaitStored(long events) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (webhookEventRepository.count() < events && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private static Payment order(String orderId) {
+        return Payment.builder()
+                .razorpayOrderId(orderId)
+                .sweetId(1L)
+                .quantity(2)
+                .amount(40.0)
+                .status(PaymentStatus.CREATED)
+                .stockReserved(true)
+                .build();
+    }
+
+    private static byte[] event(String type, String paymentId, String orderId) {
+        return ("{\"entity\":\"event\",\"event\":\"" + type + "\",\"payload\":{\"payment\":{\"entity\":"
+                + "{\"id\":\"" + paymentId + "\",\"order_id\":\"" + orderId + "\"}}}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String sign(byte[] body) throws Exception {
+        Mac mac = Mac.getInstance("HmacSHA256");
+        mac.init(new SecretKeySpec(SECRET.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+        return HexFormat.of().formatHex(mac.doFinal(body));
+    }
+}
@@ -0,0 +1,201 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.StockLedgerCheckpoint;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.StockLedgerCheckpointRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Crash recovery: journal entries past the DB checkpoint are applied once,
+ * a torn tail is ignored, and sequencing carries on after the replay.
+ * Full segments are deleted once a flush covers them.
+ */
+class StockLedgerTest {
+
+    @TempDir
+    Path dir;
+
+    private Path journal;
+    private SweetRepository sweetRepository;
+    private SweetBatchRepository sweetBatchRepository;
+    private StockLedgerCheckpointRepository checkpointRepository;
+    private StockLedger ledger;
+
+    @BeforeEach
+    void setUp() {
+        journal = dir.resolve("stock-ledger.journal");
+        sweetRepository = mock(SweetRepository.class);
+        sweetBatchRepository = mock(SweetBatchRepository.class);
+        checkpointRepository = mock(StockLedgerCheckpointRepository.class);
+        ledger = new StockLedger(sweetRepository, sweetBatchRepository, checkpointRepository,
+                mock(PlatformTransactionManager.class), mock(InventoryJournal.class));
+        ReflectionTestUtils.setField(ledger, "enabled", true);
+        ReflectionTestUtils.setField(ledger, "journalPath", journal.toString());
+        ReflectionTestUtils.setField(ledger, "fsync", true);
+        ReflectionTestUtils.setField(ledger, "segmentBytes", 1_048_576L);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        ledger.stop();
+    }
+
+    @Test
+    @DisplayName("A torn record at the tail is skipped")
+    void tornTailIsSkipped() throws Exception {
+        checkpointAt(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        bytes.write(record(1, 7L, 2));
+        bytes.write(record(2, 7L, 3));
+        bytes.write(record(3, 8L, 5), 0, 11);   // crashed mid-write
+        Files.write(journal, bytes.toByteArray());
+
+        ledger.start();
+
+        assertThat(subtracted()).containsExactly(Map.entry(7L, 5));
+        assertThat(savedCheckpoint()).isEqualTo(2);
+        assertThat(journalFiles()).containsExactly("stock-ledger.journal.3");
+        assertThat(Files.size(dir.resolve("stock-ledger.journal.3"))).isZero();
+    }
+
+    @Test
+    @DisplayName("Entries at or below the checkpoint are not applied again")
+    void checkpointedEntriesAreSkipped() throws Exception {
+        checkpointAt(2);
+        Files.write(journal, concat(record(1, 7L, 2), record(2, 7L, 3), record(3, 7L, 1), record(4, 8L, -4)));
+
+        ledger.start();
+
+        assertThat(subtracted()).containsExactly(Map.entry(7L, 1), Map.entry(8L, -4));
+        assertThat(savedCheckpoint()).isEqualTo(4);
+    }
+
+    @Test
+    @DisplayName("After a replay new entries continue the sequence and flush")
+    void replayThenFlush() throws Exception {
+        checkpointAt(0);
+        Files.write(journal, concat(record(1, 7L, 2), record(2, 7L, 3)));
+        stockOf(7L, 20);
+
+        ledger.start();
+        clearInvocations(sweetBatchRepository, checkpointRepository);
+
+        assertThat(ledger.purchase(7L, 4)).isEqualTo(16);
+        Path segment = dir.resolve("stock-ledger.journal.3");
+        assertThat(Files.size(segment)).isEqualTo(20);
+        ledger.flush();
+
+        assertThat(subtracted()).containsExactly(Map.entry(7L, 4));
+        assertThat(savedCheckpoint()).isEqualTo(3);
+        assertThat(Files.size(segment)).isZero();
+    }
+
+    @Test
+    @DisplayName("Full segments go once flushed even if writes never pause; replay reads what is left")
+    void segmentsAreDeletedWhenCheckpointed() throws Exception {
+        ReflectionTestUtils.setField(ledger, "segmentBytes", 40L);
+        checkpointAt(0);
+        stockOf(7L, 20);
+        ledger.start();
+
+        for (int i = 0; i < 5; i++) {
+            ledger.purchase(7L, 1);
+        }
+        assertThat(journalFiles()).containsExactlyInAnyOrder(
+                "stock-ledger.journal.1", "stock-ledger.journal.3", "stock-ledger.journal.5");
+
+        // A purchase lands while the batch is being written, so the active segment stays
+        doAnswer(invocation -> {
+            ledger.purchase(7L, 1);
+            return null;
+        }).when(sweetBatchRepository).subtractStock(any());
+        ledger.flush();
+
+        assertThat(subtracted()).containsExactly(Map.entry(7L, 5));
+        assertThat(savedCheckpoint()).isEqualTo(5);
+        assertThat(journalFiles()).containsExactlyInAnyOrder("stock-ledger.journal.5", "stock-ledger.journal.7");
+
+        // Crash before the next flush: a fresh ledger applies only seq 6
+        StockLedgerCheckpointRepository restarted = mock(StockLedgerCheckpointRepository.class);
+        when(restarted.findById(StockLedgerCheckpoint.SINGLETON_ID))
+                .thenReturn(Optional.of(new StockLedgerCheckpoint(StockLedgerCheckpoint.SINGLETON_ID, 5L)));
+        SweetBatchRepository replayed = mock(SweetBatchRepository.class);
+        StockLedger recovered = new StockLedger(sweetRepository, replayed, restarted,
+                mock(PlatformTransactionManager.class), mock(InventoryJournal.class));
+        ReflectionTestUtils.setField(recovered, "enabled", true);
+        ReflectionTestUtils.setField(recovered, "journalPath", journal.toString());
+        ReflectionTestUtils.setField(recovered, "segmentBytes", 40L);
+        recovered.start();
+        recovered.stop();
+
+        verify(replayed).subtractStock(new TreeMap<>(Map.of(7L, 1)));
+        assertThat(journalFiles()).containsExactly("stock-ledger.journal.7");
+    }
+
+    private void stockOf(Long sweetId, int quantity) {
+        when(sweetRepository.findById(sweetId)).thenReturn(Optional.of(Sweet.builder()
+                .id(sweetId).name("Ladoo").category("Ladoo").price(10.0).quantity(quantity).build()));
+    }
+
+    private List<String> journalFiles() throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.map(file -> file.getFileName().toString()).toList();
+        }
+    }
+
+    private void checkpointAt(long seq) {
+        when(checkpointRepository.findById(StockLedgerCheckpoint.SINGLETON_ID))
+                .thenReturn(seq == 0 ? Optional.empty()
+                        : Optional.of(new StockLedgerCheckpoint(StockLedgerCheckpoint.SINGLETON_ID, seq)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private SortedMap<Long, Integer> subtracted() {
+        ArgumentCaptor<SortedMap<Long, Integer>> batch = ArgumentCaptor.forClass(SortedMap.class);
+        verify(sweetBatchRepository).subtractStock(batch.capture());
+        return batch.getValue();
+    }
+
+    private long savedCheckpoint() {
+        ArgumentCaptor<StockLedgerCheckpoint> checkpoint = ArgumentCaptor.forClass(StockLedgerCheckpoint.class);
+        verify(checkpointRepository).save(checkpoint.capture());
+        return checkpoint.getValue().getLastSeq();
+    }
+
+    private static byte[] record(long seq, long sweetId, int quantity) {
+        return ByteBuffer.allocate(20).putLong(seq).putLong(sweetId).putInt(quantity).array();
+    }
+
+    private static byte[] concat(byte[]... records) {
+        ByteBuffer all = ByteBuffer.allocate(records.length * 20);
+        for (byte[] record : records) {
+            all.put(record);
+        }
+        return all.array();
+    }
+}
@@ -0,0 +1,107 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Payment;
+import SweetShop.SweetShopSystem.entity.PaymentStatus;
+import SweetShop.SweetShopSystem.repository.PaymentRepository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class StockReservationServiceTest {
+
+    private SweetService sweetService;
+    private PaymentRepository paymentRepository;
+    private PlatformTransactionManager transactionManager;
+    private StockReservationService reservations;
+
+    @BeforeEach
+    void setUp() {
+        sweetService = mock(SweetService.class);
+        paymentRepository = mock(PaymentRepository.class);
+        transactionManager = mock(PlatformTransactionManager.class);
+        reservations = new StockReservationService(sweetService, paymentRepository, transactionManager);
+        ReflectionTestUtils.setField(reservations, "ttlMillis", 0L);
+        ReflectionTestUtils.setField(reservations, "tickMillis", 1L);
+    }
+
+    @Test
+    @DisplayName("An unpaid order expires and its stock goes back")
+    void expiresUnpaidOrder() throws Exception {
+        when(paymentRepository.expireIfUnpaid("order_1")).thenReturn(1);
+        reservations.activate(reservations.hold(1L, 2, payment()), "order_1", System.currentTimeMillis());
+
+        tickPast();
+
+        verify(sweetService).releaseStock(1L, 2);
+        assertThat(reservations.activeCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("A paid or confirmed order keeps its stock")
+    void paidOrderKeepsStock() throws Exception {
+        when(paymentRepository.expireIfUnpaid("order_paid")).thenReturn(0);
+        reservations.activate(reservations.hold(1L, 2, payment()), "order_paid", System.currentTimeMillis());
+        reservations.activate(reservations.hold(2L, 1, payment()), "order_confirmed", System.currentTimeMillis() + 60_000);
+
+        assertThat(reservations.confirm("order_confirmed")).isTrue();
+        tickPast();
+
+        verify(sweetService, never()).releaseStock(anyLong(), anyInt());
+        verify(paymentRepository, never()).expireIfUnpaid("order_confirmed");
+        assertThat(reservations.confirm("order_confirmed")).isFalse();
+    }
+
+    @Test
+    @DisplayName("A failed release rolls the expiry back and is retried")
+    void failedReleaseIsRetried() throws Exception {
+        when(paymentRepository.expireIfUnpaid("order_2")).thenReturn(1);
+        doThrow(new RuntimeException("database down")).doNothing().when(sweetService).releaseStock(3L, 4);
+        reservations.activate(reservations.hold(3L, 4, payment()), "order_2", System.currentTimeMillis());
+
+        tickPast();
+        verify(transactionManager).rollback(any());
+        assertThat(reservations.activeCount()).isEqualTo(1);
+
+        Thread.sleep(20);   // retry is rescheduled ten ticks later
+        tickPast();
+        verify(sweetService, times(2)).releaseStock(3L, 4);
+        assertThat(reservations.activeCount()).isZero();
+    }
+
+    @Test
+    @DisplayName("A hold commits with its payment row; an abandoned one expires on the next tick")
+    void holdIsSavedWithItsPayment() throws Exception {
+        Payment payment = payment();
+        StockReservationService.Hold hold = reservations.hold(5L, 3, payment);
+
+        InOrder inOrder = inOrder(transactionManager, sweetService, paymentRepository);
+        inOrder.verify(transactionManager).getTransaction(any());
+        inOrder.verify(sweetService).purchaseSweet(5L, 3);
+        inOrder.verify(paymentRepository).save(payment);
+        inOrder.verify(transactionManager).commit(any());
+
+        when(paymentRepository.expireIfUnpaid("txn_1")).thenReturn(1);
+        ReflectionTestUtils.setField(reservations, "ttlMillis", 60_000L);
+        reservations.abandon(hold, "txn_1");
+        tickPast();
+
+        verify(sweetService).releaseStock(5L, 3);
+    }
+
+    private static Payment payment() {
+        return Payment.builder().razorpayOrderId("txn_1").status(PaymentStatus.CREATED).stockReserved(true).build();
+    }
+
+    private void tickPast() throws InterruptedException {
+        Thread.sleep(5);
+        reservations.tick();
+    }
+}
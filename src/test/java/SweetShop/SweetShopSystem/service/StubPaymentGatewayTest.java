@@ -0,0 +1,65 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.json.JSONObject;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * payment.gateway picks the implementation, and the stub answers like
+ * Razorpay's order API after its configured latency.
+ */
+class StubPaymentGatewayTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withUserConfiguration(StubPaymentGateway.class, RazorpayPaymentGateway.class)
+            .withPropertyValues("razorpay.key=rzp_test_key", "razorpay.secret=secret");
+
+    @Test
+    @DisplayName("payment.gateway selects the stub or Razorpay, Razorpay by default")
+    void gatewaySelection() {
+        contextRunner.withPropertyValues("payment.gateway=stub").run(context ->
+                assertThat(context).hasSingleBean(PaymentGateway.class).hasSingleBean(StubPaymentGateway.class));
+        contextRunner.withPropertyValues("payment.gateway=razorpay").run(context ->
+                assertThat(context).hasSingleBean(PaymentGateway.class).hasSingleBean(RazorpayPaymentGateway.class));
+        contextRunner.run(context ->
+                assertThat(context).hasSingleBean(PaymentGateway.class).hasSingleBean(RazorpayPaymentGateway.class));
+    }
+
+    @Test
+    @DisplayName("The stub echoes the order after its latency, and fails on demand")
+    void stubCreatesOrders() throws Exception {
+        StubPaymentGateway gateway = new StubPaymentGateway();
+        ReflectionTestUtils.setField(gateway, "latencyMillis", 50L);
+        ReflectionTestUtils.setField(gateway, "jitterMillis", 0L);
+        ReflectionTestUtils.setField(gateway, "failureRate", 0.0);
+
+        long began = System.nanoTime();
+        JSONObject first = gateway.createOrder(request());
+        assertThat((System.nanoTime() - began) / 1_000_000).isGreaterThanOrEqualTo(50);
+        JSONObject second = gateway.createOrder(request());
+
+        assertThat(first.getString("id")).isEqualTo("order_stub_1");
+        assertThat(second.getString("id")).isEqualTo("order_stub_2");
+        assertThat(first.getInt("amount")).isEqualTo(1000);
+        assertThat(first.getString("currency")).isEqualTo("INR");
+        assertThat(first.getString("receipt")).isEqualTo("txn_test");
+        assertThat(first.getString("status")).isEqualTo("created");
+
+        ReflectionTestUtils.setField(gateway, "latencyMillis", 0L);
+        ReflectionTestUtils.setField(gateway, "failureRate", 1.0);
+        assertThatThrownBy(() -> gateway.createOrder(request())).hasMessage("Stub gateway failure");
+    }
+
+    private static JSONObject request() throws Exception {
+        JSONObject request = new JSONObject();
+        request.put("amount", 1000);
+        request.put("currency", "INR");
+        request.put("receipt", "txn_test");
+        return request;
+    }
+}
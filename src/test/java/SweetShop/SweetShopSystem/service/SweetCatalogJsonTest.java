@@ -0,0 +1,83 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SweetCatalogJsonTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private SweetCatalog catalog;
+    private SweetCatalogJson catalogJson;
+
+    @BeforeEach
+    void setUp() {
+        catalog = mock(SweetCatalog.class);
+        catalogJson = new SweetCatalogJson(catalog, objectMapper);
+    }
+
+    @Test
+    @DisplayName("The listing matches Jackson's output, plain and gzipped, once per version")
+    void bodyPerVersion() throws Exception {
+        Sweet ladoo = sweet(1L, "Ladoo", 10);
+        Sweet jalebi = sweet(2L, "Jalebi", 4);
+        publish(1, ladoo, jalebi);
+
+        SweetCatalogJson.Body body = catalogJson.body();
+        assertThat(body.version()).isEqualTo(1);
+        assertThat(body.json()).isEqualTo(objectMapper.writeValueAsBytes(List.of(ladoo, jalebi)));
+        try (GZIPInputStream gzip = new GZIPInputStream(new ByteArrayInputStream(body.gzip()))) {
+            assertThat(gzip.readAllBytes()).isEqualTo(body.json());
+        }
+        assertThat(catalogJson.body()).isSameAs(body);
+    }
+
+    @Test
+    @DisplayName("Only changed sweets are serialized again; deleted ones are forgotten")
+    @SuppressWarnings("unchecked")
+    void fragmentsFollowTheCatalog() throws Exception {
+        Sweet ladoo = sweet(1L, "Ladoo", 10);
+        Sweet jalebi = sweet(2L, "Jalebi", 4);
+        Sweet barfi = sweet(3L, "Barfi", 7);
+        publish(1, ladoo, jalebi, barfi);
+        catalogJson.body();
+        byte[] ladooJson = catalogJson.fragment(ladoo);
+
+        // A purchase replaces Jalebi's instance; Barfi is deleted
+        Sweet jalebiAfter = SweetCatalog.copyOf(jalebi);
+        jalebiAfter.setQuantity(3);
+        publish(2, ladoo, jalebiAfter);
+
+        SweetCatalogJson.Body body = catalogJson.body();
+        assertThat(body.version()).isEqualTo(2);
+        assertThat(body.json()).isEqualTo(objectMapper.writeValueAsBytes(List.of(ladoo, jalebiAfter)));
+        assertThat(catalogJson.fragment(ladoo)).isSameAs(ladooJson);
+        assertThat((Map<Long, ?>) ReflectionTestUtils.getField(catalogJson, "fragments")).containsOnlyKeys(1L, 2L);
+    }
+
+    private void publish(long version, Sweet... sweets) {
+        TreeMap<Long, Sweet> byId = new TreeMap<>();
+        for (Sweet sweet : sweets) {
+            byId.put(sweet.getId(), sweet);
+        }
+        when(catalog.snapshot()).thenReturn(new SweetCatalog.Snapshot(version, List.of(sweets), byId));
+    }
+
+    private static Sweet sweet(Long id, String name, int quantity) {
+        return Sweet.builder().id(id).name(name).category("Mithai").price(10.0).quantity(quantity).build();
+    }
+}
@@ -0,0 +1,164 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.event.EventListener;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@Import({SweetCatalog.class, SweetCatalogTest.VersionProbe.class})
+@RecordApplicationEvents
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetCatalogTest {
+
+    @Autowired
+    private SweetCatalog catalog;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private VersionProbe probe;
+
+    @AfterEach
+    void cleanUp() {
+        sweetRepository.deleteAll();
+        catalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("Reads come from the snapshot until it is invalidated")
+    void snapshotAndInvalidation() {
+        Sweet ladoo = save("Ladoo", 10);
+        catalog.invalidate();
+        long loaded = catalog.snapshot().version();
+
+        // A write the catalog wasn't told about stays invisible...
+        sweetRepository.save(Sweet.builder().name("Jalebi").category("Fried").price(5.0).quantity(3).build());
+        assertThat(catalog.getAll()).extracting(Sweet::getName).containsExactly("Ladoo");
+        assertThat(catalog.snapshot().version()).isEqualTo(loaded);
+
+        // ...until the next reload
+        catalog.invalidate();
+        assertThat(catalog.getAll()).extracting(Sweet::getName).containsExactly("Ladoo", "Jalebi");
+        assertThat(catalog.version()).isGreaterThan(loaded);
+
+        // Entries are detached copies, not the entities the writer holds...
+        ladoo.setQuantity(999);
+        assertThat(catalog.findById(ladoo.getId()).orElseThrow().getQuantity()).isEqualTo(10);
+
+        // ...and readers get copies of their own
+        catalog.findById(ladoo.getId()).orElseThrow().setQuantity(1);
+        catalog.getAll().get(0).setName("Changed");
+        assertThat(catalog.snapshot().byId().get(ladoo.getId()).getQuantity()).isEqualTo(10);
+        assertThat(catalog.snapshot().sweets().get(0).getName()).isEqualTo("Ladoo");
+    }
+
+    @Test
+    @DisplayName("Every patch bumps the version and the ETag, and is announced")
+    void versionAndEtag() {
+        Sweet ladoo = save("Ladoo", 10);
+        catalog.invalidate();
+        catalog.snapshot();
+        long before = catalog.version();
+        String etag = catalog.etag();
+        events.clear();
+
+        ladoo.setPrice(12.0);
+        sweetRepository.save(ladoo);
+        catalog.upsert(ladoo);
+
+        assertThat(catalog.version()).isEqualTo(before + 1);
+        assertThat(catalog.etag()).isNotEqualTo(etag).isEqualTo(catalog.etag(before + 1));
+        assertThat(catalog.findById(ladoo.getId()).orElseThrow().getPrice()).isEqualTo(12.0);
+
+        catalog.remove(ladoo.getId());
+        assertThat(catalog.findById(ladoo.getId())).isEmpty();
+        assertThat(events.stream(SweetCatalogChangedEvent.class))
+                .extracting(e -> e.changes().get(0).after() == null)
+                .containsExactly(false, true);
+    }
+
+    @Test
+    @DisplayName("A new version becomes visible only after the listeners have applied it")
+    void versionPublishedAfterListeners() {
+        save("Ladoo", 10);
+        catalog.invalidate();
+        probe.seen.clear();
+        catalog.snapshot();
+        catalog.upsert(sweetRepository.findAll().get(0));
+
+        // Each listener saw the previous version while handling the next one
+        assertThat(probe.seen).hasSize(2).allSatisfy(seen -> assertThat(seen[0]).isEqualTo(seen[1] - 1));
+        assertThat(catalog.version()).isEqualTo(probe.seen.get(1)[1]);
+    }
+
+    @Test
+    @DisplayName("An upsert applied out of commit order still shows the latest row")
+    void staleUpsertKeepsCommittedRow() {
+        Sweet ladoo = save("Ladoo", 10);
+        catalog.invalidate();
+        catalog.snapshot();
+
+        // Two purchases: 10 -> 8 -> 5; their after-commit patches arrive newest first
+        Sweet afterFirst = SweetCatalog.copyOf(ladoo);
+        afterFirst.setQuantity(8);
+        Sweet afterSecond = SweetCatalog.copyOf(ladoo);
+        afterSecond.setQuantity(5);
+        ladoo.setQuantity(5);
+        sweetRepository.save(ladoo);
+
+        catalog.upsert(afterSecond);
+        catalog.upsert(afterFirst);
+
+        assertThat(catalog.findById(ladoo.getId()).orElseThrow().getQuantity()).isEqualTo(5);
+
+        // An edit racing a purchase: the purchase's older copy must not undo the rename
+        Sweet beforeEdit = SweetCatalog.copyOf(ladoo);
+        ladoo.setName("Motichoor Ladoo");
+        ladoo.setPrice(14.0);
+        sweetRepository.save(ladoo);
+        catalog.upsert(ladoo);
+        catalog.upsert(beforeEdit);
+
+        Sweet shown = catalog.findById(ladoo.getId()).orElseThrow();
+        assertThat(shown.getName()).isEqualTo("Motichoor Ladoo");
+        assertThat(shown.getPrice()).isEqualTo(14.0);
+    }
+
+    // Records [catalog.version() while handling, event version]
+    static class VersionProbe {
+
+        @Autowired
+        private SweetCatalog catalog;
+
+        private final List<long[]> seen = new CopyOnWriteArrayList<>();
+
+        @EventListener
+        void onCatalogChanged(SweetCatalogChangedEvent event) {
+            seen.add(new long[]{catalog.version(), event.snapshot().version()});
+        }
+    }
+
+    private Sweet save(String name, int quantity) {
+        return sweetRepository.save(Sweet.builder().name(name).category("Ladoo").price(10.0).quantity(quantity).build());
+    }
+}
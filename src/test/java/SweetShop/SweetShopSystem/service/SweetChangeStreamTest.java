@@ -0,0 +1,150 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * A subscriber whose connection is busy: changes to one sweet conflate into
+ * the latest one, and a backlog past the buffer turns into a single reset.
+ */
+class SweetChangeStreamTest {
+
+    private SweetChangeStream stream;
+    private RecordingEmitter emitter;
+
+    @BeforeEach
+    void setUp() {
+        SweetCatalog catalog = mock(SweetCatalog.class);
+        when(catalog.version()).thenReturn(3L);
+        stream = new SweetChangeStream(catalog);
+        ReflectionTestUtils.setField(stream, "bufferSize", 2);
+        ReflectionTestUtils.setField(stream, "keepaliveMillis", 60_000L);
+        emitter = new RecordingEmitter();
+    }
+
+    @AfterEach
+    void tearDown() {
+        emitter.sent.release(100);
+        stream.stop();
+    }
+
+    @Test
+    @DisplayName("Updates queued behind a slow send conflate per sweet; overflow becomes one reset")
+    void conflatesAndResets() throws Exception {
+        stream.register(emitter);
+        Event first = emitter.next();
+        assertThat(first.name()).isEqualTo("reset");
+        assertThat(first.data()).isEqualTo(Map.of("version", 3L));
+
+        // The first send is still in progress: these pile up in the buffer
+        publish(4, change(1L, 9), change(2L, 5));
+        publish(5, change(1L, 8));
+        publish(6, new SweetCatalogChangedEvent.Change(2L, sweet(2L, 5), null), change(1L, 7));
+        emitter.sent.release();
+
+        Event batch = emitter.next();
+        assertThat(batch.name()).isEqualTo("sweets");
+        assertThat(batch.id()).isEqualTo("6");
+        @SuppressWarnings("unchecked")
+        List<SweetChangeStream.Delta> deltas = new ArrayList<>((Collection<SweetChangeStream.Delta>) batch.data());
+        assertThat(deltas).containsExactly(
+                new SweetChangeStream.Delta(2L, null, null, null, null, true),
+                new SweetChangeStream.Delta(1L, null, null, null, 7, false));
+
+        // Three distinct sweets behind a buffer of two: the backlog is dropped
+        publish(7, change(1L, 6), change(2L, 4));
+        publish(8, change(3L, 1));
+        emitter.sent.release();
+
+        Event reset = emitter.next();
+        assertThat(reset.name()).isEqualTo("reset");
+        assertThat(reset.data()).isEqualTo(Map.of("version", 8L));
+    }
+
+    @Test
+    @DisplayName("A sweet added and then bought before the send keeps its name, category and price")
+    void stockOnlyChangeKeepsEarlierFields() throws Exception {
+        stream.register(emitter);
+        emitter.next();
+
+        publish(4, new SweetCatalogChangedEvent.Change(5L, null, sweet(5L, 9)));
+        publish(5, change(5L, 8));
+        emitter.sent.release();
+
+        Event batch = emitter.next();
+        assertThat(batch.id()).isEqualTo("5");
+        @SuppressWarnings("unchecked")
+        Collection<SweetChangeStream.Delta> deltas = (Collection<SweetChangeStream.Delta>) batch.data();
+        assertThat(deltas).containsExactly(new SweetChangeStream.Delta(5L, "Sweet 5", "Test", 10.0, 8, false));
+    }
+
+    // Publishes a change event and waits until the dispatcher has fanned it out
+    private void publish(long version, SweetCatalogChangedEvent.Change... changes) throws Exception {
+        stream.onCatalogChanged(new SweetCatalogChangedEvent(
+                new SweetCatalog.Snapshot(version, List.of(), Map.of()), false, List.of(changes)));
+        ExecutorService dispatcher = (ExecutorService) ReflectionTestUtils.getField(stream, "dispatcher");
+        dispatcher.submit(() -> { }).get(5, TimeUnit.SECONDS);
+    }
+
+    private static SweetCatalogChangedEvent.Change change(Long id, int quantity) {
+        return new SweetCatalogChangedEvent.Change(id, sweet(id, quantity + 1), sweet(id, quantity));
+    }
+
+    private static Sweet sweet(Long id, int quantity) {
+        return Sweet.builder().id(id).name("Sweet " + id).category("Test").price(10.0).quantity(quantity).build();
+    }
+
+    private record Event(String name, String id, Object data) {
+    }
+
+    // Records every event, then holds the sending thread until the test lets it go
+    private static final class RecordingEmitter extends SseEmitter {
+
+        private final BlockingQueue<Event> events = new LinkedBlockingQueue<>();
+        private final Semaphore sent = new Semaphore(0);
+
+        @Override
+        public void send(SseEventBuilder builder) {
+            List<ResponseBodyEmitter.DataWithMediaType> parts = new ArrayList<>(builder.build());
+            String head = (String) parts.get(0).getData();
+            String name = null;
+            String id = null;
+            for (String line : head.split("\n")) {
+                if (line.startsWith("event:")) {
+                    name = line.substring("event:".length());
+                } else if (line.startsWith("id:")) {
+                    id = line.substring("id:".length());
+                }
+            }
+            events.add(new Event(name, id, parts.size() > 1 ? parts.get(1).getData() : null));
+            sent.acquireUninterruptibly();
+        }
+
+        Event next() throws InterruptedException {
+            Event event = events.poll(5, TimeUnit.SECONDS);
+            assertThat(event).as("event sent within 5s").isNotNull();
+            return event;
+        }
+    }
+}
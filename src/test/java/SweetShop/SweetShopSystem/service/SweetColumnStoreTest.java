@@ -0,0 +1,91 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * The columnar filter agrees with a plain scan of the sweets, across bitset
+ * word boundaries and after deletes (slot reuse) and updates.
+ */
+class SweetColumnStoreTest {
+
+    private static final String[] CATEGORIES = {"Barfi", "Ladoo", "Halwa", "Fried"};
+
+    private final SweetColumnStore store = new SweetColumnStore(mock(SweetCatalog.class));
+    private final Random random = new Random(7);
+
+    @Test
+    @DisplayName("Filters match a brute-force scan before and after changes")
+    void matchesScan() {
+        TreeMap<Long, Sweet> sweets = new TreeMap<>();
+        for (long id = 1; id <= 300; id++) {
+            sweets.put(id, randomSweet(id));
+        }
+        store.onCatalogChanged(new SweetCatalogChangedEvent(
+                new SweetCatalog.Snapshot(1, List.copyOf(sweets.values()), sweets), true, List.of()));
+        assertAgrees(sweets);
+
+        // Delete every third sweet, re-price some, and add new ones into the freed slots
+        List<SweetCatalogChangedEvent.Change> changes = new ArrayList<>();
+        for (long id = 3; id <= 300; id += 3) {
+            changes.add(new SweetCatalogChangedEvent.Change(id, sweets.remove(id), null));
+        }
+        for (long id = 1; id <= 300; id += 7) {
+            Sweet before = sweets.get(id);
+            if (before != null) {
+                Sweet after = randomSweet(id);
+                sweets.put(id, after);
+                changes.add(new SweetCatalogChangedEvent.Change(id, before, after));
+            }
+        }
+        for (long id = 301; id <= 350; id++) {
+            Sweet added = randomSweet(id);
+            sweets.put(id, added);
+            changes.add(new SweetCatalogChangedEvent.Change(id, null, added));
+        }
+        store.onCatalogChanged(new SweetCatalogChangedEvent(
+                new SweetCatalog.Snapshot(2, List.copyOf(sweets.values()), sweets), false, changes));
+        assertThat(store.version()).isEqualTo(2);
+        assertAgrees(sweets);
+
+        assertThat(store.filter("Gulab", null, null, false)).isEmpty();
+        assertThat(store.filter("barfi", null, null, false)).isEqualTo(store.filter("BARFI", null, null, false));
+    }
+
+    private void assertAgrees(Map<Long, Sweet> sweets) {
+        for (String category : new String[]{null, "Barfi", "ladoo"}) {
+            for (Double min : new Double[]{null, 20.0}) {
+                for (Double max : new Double[]{null, 60.0}) {
+                    for (boolean inStock : new boolean[]{false, true}) {
+                        List<Sweet> expected = sweets.values().stream()
+                                .filter(s -> category == null || s.getCategory().equalsIgnoreCase(category))
+                                .filter(s -> min == null || s.getPrice() >= min)
+                                .filter(s -> max == null || s.getPrice() <= max)
+                                .filter(s -> !inStock || s.getQuantity() > 0)
+                                .toList();
+                        assertThat(store.filter(category, min, max, inStock))
+                                .as("category=%s min=%s max=%s inStock=%s", category, min, max, inStock)
+                                .containsExactlyElementsOf(expected);
+                    }
+                }
+            }
+        }
+    }
+
+    private Sweet randomSweet(long id) {
+        return Sweet.builder()
+                .id(id)
+                .name("Sweet " + id)
+                .category(CATEGORIES[random.nextInt(CATEGORIES.length)])
+                .price(random.nextInt(100) + 0.5)
+                .quantity(random.nextInt(4))
+                .build();
+    }
+}
@@ -0,0 +1,79 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+import SweetShop.SweetShopSystem.dto.ImportResultDTO;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Rows per second for a 100k-row CSV import into H2, in JDBC batches with
+ * one CREATE event per row.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({SweetImportService.class, SweetBatchRepository.class, InventoryBatchRepository.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetImportBenchmark {
+
+    @Autowired
+    private SweetImportService importService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @MockBean
+    private SweetService sweetService;
+
+    @MockBean
+    private SweetCatalog sweetCatalog;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void csvImport() throws Exception {
+        importRows("warm-up", 20_000);
+        cleanUp();
+        importRows("CSV import, 100k rows", 100_000);
+    }
+
+    private void importRows(String label, int rows) throws Exception {
+        StringBuilder csv = new StringBuilder("name,category,price,quantity\n");
+        for (int i = 0; i < rows; i++) {
+            csv.append("Sweet ").append(i).append(",Cat ").append(i % 50).append(',')
+                    .append(i % 100).append(".5,").append(i % 20).append('\n');
+        }
+        byte[] body = csv.toString().getBytes(StandardCharsets.UTF_8);
+
+        long began = System.nanoTime();
+        ImportResultDTO result = importService.importSweets(new ByteArrayInputStream(body), "csv");
+        long elapsed = System.nanoTime() - began;
+
+        if (result.getImported() != rows) {
+            throw new IllegalStateException("Imported " + result.getImported() + " of " + rows + " rows");
+        }
+        Benchmarks.throughput(label, rows, elapsed);
+    }
+}
@@ -0,0 +1,123 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.dto.ImportResultDTO;
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.verify;
+
+@DataJpaTest
+@Import({SweetImportService.class, SweetBatchRepository.class, InventoryBatchRepository.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetImportServiceTest {
+
+    @Autowired
+    private SweetImportService importService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @MockBean
+    private SweetService sweetService;
+
+    @MockBean
+    private SweetCatalog sweetCatalog;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+    }
+
+    @Test
+    @DisplayName("Bad quantities are rejected and every imported row gets its own CREATE event")
+    void importsNdjson() throws Exception {
+        Sweet existing = sweetRepository.save(
+                Sweet.builder().name("Barfi").category("Milk").price(8.0).quantity(4).build());
+
+        ImportResultDTO result = importService.importSweets(input("""
+                {"name":"Ladoo","category":"Ladoo","price":10,"quantity":5}
+                {"name":"Jalebi","category":"Fried","price":"4.5","quantity":"7"}
+                {"name":"Peda","category":"Milk","price":6,"quantity":"lots"}
+                {"name":"Kheer","category":"Milk","price":6,"quantity":2.5}
+                {"name":"Halwa","category":"Milk","price":"cheap","quantity":1}
+                """), "ndjson");
+
+        assertThat(result.getImported()).isEqualTo(2);
+        assertThat(result.getRejected()).isEqualTo(3);
+        assertThat(result.getErrors()).containsExactly(
+                "line 3: quantity must be a whole number",
+                "line 4: quantity must be a whole number",
+                "line 5: price must be a number");
+
+        Map<String, Sweet> imported = sweetRepository.findAll().stream()
+                .filter(sweet -> !sweet.getId().equals(existing.getId()))
+                .collect(Collectors.toMap(Sweet::getName, sweet -> sweet));
+        assertThat(imported.get("Jalebi").getQuantity()).isEqualTo(7);
+        assertThat(imported.get("Jalebi").getPrice()).isEqualTo(4.5);
+
+        List<InventoryEvent> events = eventRepository.findAll();
+        assertThat(events).allMatch(event -> event.getType() == InventoryEventType.CREATE);
+        assertThat(events).extracting(InventoryEvent::getSweetId)
+                .containsExactlyInAnyOrder(imported.get("Ladoo").getId(), imported.get("Jalebi").getId());
+        assertThat(events).extracting(InventoryEvent::getQuantityAfter).containsExactlyInAnyOrder(5, 7);
+    }
+
+    @Test
+    @DisplayName("A CSV spanning several batches imports every row once, each with its own event")
+    void importsAcrossBatches() throws Exception {
+        StringBuilder csv = new StringBuilder("name,category,price,quantity\n");
+        for (int i = 0; i < 1_234; i++) {
+            csv.append("Sweet ").append(i).append(",Cat ").append(i % 50).append(',')
+                    .append(i % 100).append(".5,").append(i % 20).append('\n');
+        }
+
+        ImportResultDTO result = importService.importSweets(input(csv.toString()), "csv");
+
+        assertThat(result.getImported()).isEqualTo(1_234);
+        assertThat(result.getRejected()).isZero();
+        Map<Long, Sweet> sweets = sweetRepository.findAll().stream()
+                .collect(Collectors.toMap(Sweet::getId, sweet -> sweet));
+        assertThat(sweets).hasSize(1_234);
+        assertThat(sweets.values()).extracting(Sweet::getName).doesNotHaveDuplicates();
+
+        List<InventoryEvent> events = eventRepository.findAll();
+        assertThat(events).extracting(InventoryEvent::getSweetId)
+                .containsExactlyInAnyOrderElementsOf(sweets.keySet());
+        assertThat(events).allMatch(event -> event.getType() == InventoryEventType.CREATE
+                && event.getQuantityAfter() == sweets.get(event.getSweetId()).getQuantity());
+        verify(sweetCatalog).invalidate();
+    }
+
+    private static ByteArrayInputStream input(String body) {
+        return new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,90 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SweetNameIndexTest {
+
+    private SweetNameIndex index;
+
+    @BeforeEach
+    void setUp() {
+        SweetCatalog catalog = mock(SweetCatalog.class);
+        when(catalog.snapshot()).thenReturn(new SweetCatalog.Snapshot(1, List.of(), Map.of()));
+        index = new SweetNameIndex(catalog);
+    }
+
+    @Test
+    @DisplayName("Exact names rank first, then prefixes, word starts and other substrings")
+    void ranking() {
+        reload(sweet(1L, "Motichoor Ladoo", 5), sweet(2L, "Kaladoo", 5), sweet(3L, "Ladoo Special", 5),
+                sweet(4L, "Ladoo", 5), sweet(5L, "Besan Ladoo", 0), sweet(6L, "Ladoos", 5), sweet(7L, "Jalebi", 5));
+
+        assertThat(ids(index.search("LADOO", sweet -> true))).containsExactly(4L, 6L, 3L, 5L, 1L, 2L);
+        assertThat(ids(index.search("ladoo", sweet -> sweet.getQuantity() > 0))).containsExactly(4L, 6L, 3L, 1L, 2L);
+        // Shorter than a trigram: scanned rather than looked up
+        assertThat(ids(index.search("la", sweet -> true))).containsExactly(4L, 6L, 3L, 5L, 1L, 2L);
+        assertThat(ids(index.search("eb", sweet -> true))).containsExactly(7L);
+        assertThat(index.search("rasmalai", sweet -> true)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("Renames, deletes and stock changes are reflected")
+    void followsChanges() {
+        Sweet ladoo = sweet(1L, "Ladoo", 5);
+        Sweet peda = sweet(2L, "Peda", 5);
+        reload(ladoo, peda);
+
+        Sweet sold = SweetCatalog.copyOf(ladoo);
+        sold.setQuantity(1);
+        Sweet renamed = SweetCatalog.copyOf(peda);
+        renamed.setName("Kesar Peda");
+        index.onCatalogChanged(new SweetCatalogChangedEvent(snapshot(2), false, List.of(
+                new SweetCatalogChangedEvent.Change(1L, ladoo, sold),
+                new SweetCatalogChangedEvent.Change(2L, peda, renamed),
+                new SweetCatalogChangedEvent.Change(3L, null, sweet(3L, "Doodh Peda", 2)))));
+
+        assertThat(index.search("ladoo", sweet -> true)).extracting(Sweet::getQuantity).containsExactly(1);
+        assertThat(ids(index.search("peda", sweet -> true))).containsExactly(2L, 3L);
+        assertThat(index.search("kesar", sweet -> true)).extracting(Sweet::getName).containsExactly("Kesar Peda");
+
+        index.onCatalogChanged(new SweetCatalogChangedEvent(snapshot(3), false, List.of(
+                new SweetCatalogChangedEvent.Change(2L, renamed, null))));
+        assertThat(index.version()).isEqualTo(3);
+        assertThat(ids(index.search("peda", sweet -> true))).containsExactly(3L);
+        assertThat(index.search("kesar", sweet -> true)).isEmpty();
+    }
+
+    private void reload(Sweet... sweets) {
+        TreeMap<Long, Sweet> byId = new TreeMap<>();
+        for (Sweet sweet : sweets) {
+            byId.put(sweet.getId(), sweet);
+        }
+        index.onCatalogChanged(new SweetCatalogChangedEvent(
+                new SweetCatalog.Snapshot(1, List.copyOf(byId.values()), byId), true, List.of()));
+    }
+
+    // Patch events only need the version
+    private static SweetCatalog.Snapshot snapshot(long version) {
+        return new SweetCatalog.Snapshot(version, List.of(), Map.of());
+    }
+
+    private static List<Long> ids(List<Sweet> sweets) {
+        return sweets.stream().map(Sweet::getId).toList();
+    }
+
+    private static Sweet sweet(Long id, String name, int quantity) {
+        return Sweet.builder().id(id).name(name).category("Mithai").price(10.0).quantity(quantity).build();
+    }
+}
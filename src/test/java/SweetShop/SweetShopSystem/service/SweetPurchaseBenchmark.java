@@ -0,0 +1,175 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+import SweetShop.SweetShopSystem.repository.SweetStockShardRepository;
+
+import com.cloudinary.Cloudinary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Purchases per second through SweetService.purchaseSweet against H2, by
+ * thread count, for one contended sweet and for purchases spread over many,
+ * with the conditional UPDATE, with the stock ledger (journal fsync'd,
+ * flushed every 20ms), and for one hot SKU by shard count. SQL logging is
+ * off: printing every statement would dominate the numbers.
+ */
+@DataJpaTest(properties = "spring.jpa.show-sql=false")
+@Import({
+        SweetService.class, SweetBatchRepository.class, SweetCatalog.class, SweetNameIndex.class,
+        SweetColumnStore.class, SweetSearchCache.class, StockLedger.class, InventoryJournal.class,
+        InventoryBatchRepository.class, SweetStockShards.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetPurchaseBenchmark {
+
+    private static final int STOCK = 10_000_000;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @Autowired
+    private SweetCatalog sweetCatalog;
+
+    @Autowired
+    private StockLedger stockLedger;
+
+    @Autowired
+    private SweetStockShards sweetStockShards;
+
+    @Autowired
+    private SweetStockShardRepository shardRepository;
+
+    @TempDir
+    Path journalDir;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @AfterEach
+    void cleanUp() {
+        eventRepository.deleteAllInBatch();
+        shardRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+        sweetCatalog.invalidate();
+    }
+
+    @Test
+    void conditionalUpdate() throws Exception {
+        List<Long> ids = newSweets(32);
+        run("warm-up", 8, 2_000, ids.subList(0, 1));
+
+        for (int threads : new int[]{1, 8, 32}) {
+            run("conditional UPDATE, 1 sweet, " + threads + " threads", threads, 4_000 / threads + 500, ids.subList(0, 1));
+        }
+        for (int threads : new int[]{8, 32}) {
+            run("conditional UPDATE, 32 sweets, " + threads + " threads", threads, 4_000 / threads + 500, ids);
+        }
+    }
+
+    @Test
+    void hotSkuShards() throws Exception {
+        run("warm-up", 8, 2_000, newSweets(1));
+        for (int shards : new int[]{1, 4, 16, 64}) {
+            for (int threads : new int[]{8, 32}) {
+                List<Long> ids = newSweets(1);
+                if (shards > 1) {
+                    sweetStockShards.enable(ids.get(0), shards);
+                }
+                run(shards + " shard(s), 1 sweet, " + threads + " threads", threads, 4_000 / threads + 500, ids);
+            }
+        }
+    }
+
+    @Test
+    void stockLedger() throws Exception {
+        List<Long> ids = newSweets(32);
+        ReflectionTestUtils.setField(stockLedger, "enabled", true);
+        ReflectionTestUtils.setField(stockLedger, "journalPath", journalDir.resolve("stock-ledger.journal").toString());
+        stockLedger.start();
+        ScheduledExecutorService flusher = Executors.newSingleThreadScheduledExecutor();
+        flusher.scheduleWithFixedDelay(stockLedger::flush, 20, 20, TimeUnit.MILLISECONDS);
+        try {
+            run("warm-up", 8, 2_000, ids.subList(0, 1));
+            for (int threads : new int[]{1, 8, 32}) {
+                run("stock ledger, 1 sweet, " + threads + " threads", threads, 4_000 / threads + 500, ids.subList(0, 1));
+            }
+            for (int threads : new int[]{8, 32}) {
+                run("stock ledger, 32 sweets, " + threads + " threads", threads, 4_000 / threads + 500, ids);
+            }
+        } finally {
+            flusher.shutdownNow();
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+            stockLedger.stop();
+            ReflectionTestUtils.setField(stockLedger, "enabled", false);
+        }
+    }
+
+    // Each thread buys one unit per call, round-robin over the given sweets
+    private void run(String label, int threads, int purchasesPerThread, List<Long> ids) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch start = new CountDownLatch(1);
+        long[] nanos = new long[threads * purchasesPerThread];
+        AtomicInteger next = new AtomicInteger();
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int offset = t;
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < purchasesPerThread; i++) {
+                    Long id = ids.get((offset + i) % ids.size());
+                    long began = System.nanoTime();
+                    sweetService.purchaseSweet(id, 1);
+                    nanos[next.getAndIncrement()] = System.nanoTime() - began;
+                }
+                return null;
+            }));
+        }
+        long began = System.nanoTime();
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(10, TimeUnit.MINUTES);
+        }
+        long elapsed = System.nanoTime() - began;
+        pool.shutdown();
+
+        Benchmarks.throughput(label, nanos.length, elapsed);
+        Benchmarks.latency(label, nanos);
+    }
+
+    private List<Long> newSweets(int count) {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            ids.add(sweetRepository.save(Sweet.builder()
+                    .name("Sweet " + i).category("Barfi").price(20.0).quantity(STOCK).build()).getId());
+        }
+        sweetCatalog.invalidate();
+        sweetCatalog.snapshot();
+        return ids;
+    }
+}
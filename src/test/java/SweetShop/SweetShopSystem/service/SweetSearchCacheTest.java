@@ -0,0 +1,137 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class SweetSearchCacheTest {
+
+    private SweetCatalog catalog;
+    private SweetSearchCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        catalog = mock(SweetCatalog.class);
+        when(catalog.version()).thenReturn(1L);
+        cache = new SweetSearchCache(catalog);
+        ReflectionTestUtils.setField(cache, "maxSize", 2);
+        ReflectionTestUtils.setField(cache, "ttlMillis", 60_000L);
+    }
+
+    @Test
+    @DisplayName("A catalog version change or an expired TTL turns hits into misses")
+    void invalidation() throws Exception {
+        List<Sweet> first = cache.get(SweetSearchCache.key("Ladoo", null, null, null, false), this::load);
+        assertThat(cache.get(SweetSearchCache.key("LADOO", null, null, null, false), this::load)).isSameAs(first);
+        assertThat(loads).hasValue(1);
+
+        when(catalog.version()).thenReturn(2L);
+        assertThat(cache.get(SweetSearchCache.key("ladoo", null, null, null, false), this::load)).isNotSameAs(first);
+        assertThat(loads).hasValue(2);
+
+        ReflectionTestUtils.setField(cache, "ttlMillis", 1L);
+        Thread.sleep(5);
+        cache.get(SweetSearchCache.key("ladoo", null, null, null, false), this::load);
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    @DisplayName("A result read from an index that lags the catalog is not cached as current")
+    void keyedOnIndexVersion() {
+        SweetSearchCache.Key key = SweetSearchCache.key("ladoo", null, null, null, false);
+        when(catalog.version()).thenReturn(2L);
+
+        // The catalog says 2, but the index the loader read had only applied 1
+        cache.get(key, () -> loadAt(1));
+        cache.get(key, this::load);
+        assertThat(loads).hasValue(2);
+
+        cache.get(key, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    @DisplayName("The least recently used entry is evicted past max-size")
+    void lruEviction() {
+        SweetSearchCache.Key a = SweetSearchCache.key("a", null, null, null, false);
+        SweetSearchCache.Key b = SweetSearchCache.key("b", null, null, null, false);
+        SweetSearchCache.Key c = SweetSearchCache.key("c", null, null, null, false);
+        cache.get(a, this::load);
+        cache.get(b, this::load);
+        cache.get(a, this::load);   // b is now the eldest
+        cache.get(c, this::load);
+        assertThat(loads).hasValue(3);
+
+        cache.get(a, this::load);
+        cache.get(b, this::load);
+        assertThat(loads).hasValue(4);
+        assertThat(cache.stats()).containsEntry("evictions", 2L).containsEntry("size", 2);
+    }
+
+    @Test
+    @DisplayName("Concurrent misses share one load, and a failed load is not cached")
+    void singleFlight() throws Exception {
+        SweetSearchCache.Key key = SweetSearchCache.key(null, "barfi", null, null, true);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        List<Future<List<Sweet>>> results = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            results.add(pool.submit(() -> cache.get(key, () -> {
+                await(release);
+                return load();
+            })));
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while ((long) cache.stats().get("coalesced") < 7 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        release.countDown();
+
+        List<Sweet> shared = results.get(0).get(5, TimeUnit.SECONDS);
+        for (Future<List<Sweet>> result : results) {
+            assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(shared);
+        }
+        assertThat(loads).hasValue(1);
+        assertThat(cache.stats()).containsEntry("coalesced", 7L);
+        pool.shutdown();
+
+        SweetSearchCache.Key failing = SweetSearchCache.key("x", null, null, null, false);
+        assertThatThrownBy(() -> cache.get(failing, () -> {
+            throw new RuntimeException("index not ready");
+        })).hasMessage("index not ready");
+        cache.get(failing, this::load);
+        assertThat(loads).hasValue(2);
+    }
+
+    private SweetSearchCache.Loaded load() {
+        return loadAt(catalog.version());
+    }
+
+    private SweetSearchCache.Loaded loadAt(long version) {
+        loads.incrementAndGet();
+        return new SweetSearchCache.Loaded(version,
+                List.of(Sweet.builder().id(1L).name("Ladoo").category("Ladoo").price(10.0).quantity(5).build()));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
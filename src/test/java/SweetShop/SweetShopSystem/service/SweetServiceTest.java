@@ -0,0 +1,217 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.dto.BulkUpdateItemDTO;
+import SweetShop.SweetShopSystem.dto.BulkUpdateResultDTO;
+import SweetShop.SweetShopSystem.dto.CheckoutItemDTO;
+import SweetShop.SweetShopSystem.dto.SweetPageDTO;
+import SweetShop.SweetShopSystem.entity.InventoryEvent;
+import SweetShop.SweetShopSystem.entity.InventoryEventType;
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.InventoryEventRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+import SweetShop.SweetShopSystem.repository.SweetStockShardRepository;
+
+import com.cloudinary.Cloudinary;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * SweetService against H2 with the real catalog and its in-memory indexes.
+ * Runs outside a test transaction so after-commit catalog patches happen.
+ */
+@DataJpaTest
+@Import({
+        SweetService.class, SweetBatchRepository.class, SweetCatalog.class, SweetNameIndex.class,
+        SweetColumnStore.class, SweetSearchCache.class, StockLedger.class, InventoryJournal.class,
+        InventoryBatchRepository.class, SweetStockShards.class
+})
+@TestPropertySource(properties = {"sweets.page.default-size=3", "sweets.page.max-size=5", "sweets.batch.max-ids=4"})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetServiceTest {
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private InventoryEventRepository eventRepository;
+
+    @Autowired
+    private SweetCatalog sweetCatalog;
+
+    @Autowired
+    private SweetStockShards sweetStockShards;
+
+    @Autowired
+    private SweetStockShardRepository shardRepository;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @AfterEach
+    void cleanUp() {
+        shardRepository.deleteAllInBatch();
+        eventRepository.deleteAllInBatch();
+        sweetRepository.deleteAllInBatch();
+        sweetCatalog.invalidate();
+    }
+
+    @Test
+    @DisplayName("Keyset pages walk every sweet once, in id order, and sizes are capped")
+    void pagesAndStream() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            ids.add(save("Sweet " + i, "Mithai", 10.0, 5).getId());
+        }
+
+        List<Long> paged = new ArrayList<>();
+        List<Integer> sizes = new ArrayList<>();
+        Long cursor = null;
+        do {
+            SweetPageDTO page = sweetService.getSweetsPage(cursor, null);
+            page.getItems().forEach(sweet -> paged.add(sweet.getId()));
+            sizes.add(page.getItems().size());
+            cursor = page.getNextCursor();
+        } while (cursor != null);
+
+        assertThat(paged).containsExactlyElementsOf(ids);
+        assertThat(sizes).containsExactly(3, 3, 1);
+        assertThat(sweetService.getSweetsPage(null, 100).getItems()).hasSize(5);
+        assertThat(sweetService.getSweetsPage(ids.get(6), null).getItems()).isEmpty();
+
+        List<Long> streamed = new ArrayList<>();
+        sweetService.streamAllSweets(sweet -> streamed.add(sweet.getId()));
+        assertThat(streamed).containsExactlyElementsOf(ids);
+    }
+
+    @Test
+    @DisplayName("Checkout takes the whole cart or nothing, sharded sweets included")
+    void checkoutIsAllOrNothing() {
+        Long ladoo = save("Ladoo", "Ladoo", 10.0, 10).getId();
+        Long jalebi = save("Jalebi", "Fried", 5.0, 4).getId();
+        Long barfi = save("Kaju Barfi", "Barfi", 20.0, 6).getId();
+        Long peda = save("Peda", "Milk", 8.0, 3).getId();
+        sweetStockShards.enable(barfi, 2);
+
+        // Duplicate lines are merged
+        List<Sweet> bought = sweetService.checkout(List.of(
+                new CheckoutItemDTO(jalebi, 1), new CheckoutItemDTO(ladoo, 3),
+                new CheckoutItemDTO(jalebi, 2), new CheckoutItemDTO(barfi, 2)));
+        assertThat(bought).extracting(Sweet::getId).containsExactly(ladoo, jalebi, barfi);
+        assertThat(bought).extracting(Sweet::getQuantity).containsExactly(7, 1, 4);
+        assertThat(quantities(ladoo, jalebi)).containsExactly(7, 1);
+        assertThat(shardRepository.totalQuantity(barfi)).isEqualTo(4);
+        assertThat(sweetCatalog.findById(jalebi).orElseThrow().getQuantity()).isEqualTo(1);
+        assertThat(eventRepository.findAll()).filteredOn(event -> event.getType() == InventoryEventType.CHECKOUT)
+                .extracting(InventoryEvent::getDelta).containsExactlyInAnyOrder(-3, -3, -2);
+
+        // The sharded line is short: the row decrements already made are rolled back
+        long events = eventRepository.count();
+        long version = sweetCatalog.version();
+        assertThatThrownBy(() -> sweetService.checkout(List.of(
+                new CheckoutItemDTO(ladoo, 1), new CheckoutItemDTO(jalebi, 1), new CheckoutItemDTO(barfi, 5))))
+                .hasMessage("Not enough stock");
+        assertThatThrownBy(() -> sweetService.checkout(List.of(
+                new CheckoutItemDTO(ladoo, 1), new CheckoutItemDTO(jalebi, 2))))
+                .hasMessage("Not enough stock for sweet " + jalebi);
+
+        assertThat(quantities(ladoo, jalebi)).containsExactly(7, 1);
+        assertThat(shardRepository.totalQuantity(barfi)).isEqualTo(4);
+        assertThat(eventRepository.count()).isEqualTo(events);
+        assertThat(sweetCatalog.version()).isEqualTo(version);
+    }
+
+    @Test
+    @DisplayName("Batch lookup keeps request order, drops duplicates and unknown ids, and caps the id count")
+    void getSweetsByIds() {
+        Long ladoo = save("Ladoo", "Ladoo", 10.0, 10).getId();
+        Long jalebi = save("Jalebi", "Fried", 5.0, 4).getId();
+
+        assertThat(sweetService.getSweetsByIds(List.of(jalebi, -1L, ladoo, jalebi)))
+                .extracting(Sweet::getId).containsExactly(jalebi, ladoo);
+        assertThat(sweetService.getSweetsByIds(List.of())).isEmpty();
+        assertThatThrownBy(() -> sweetService.getSweetsByIds(List.of(1L, 2L, 3L, 4L, 5L)))
+                .hasMessage("At most 4 ids per request");
+    }
+
+    @Test
+    @DisplayName("Bulk update applies valid items in one catalog bump and reports the rest")
+    void bulkUpdate() {
+        Long ladoo = save("Ladoo", "Ladoo", 10.0, 10).getId();
+        Long jalebi = save("Jalebi", "Fried", 5.0, 4).getId();
+        Long barfi = save("Kaju Barfi", "Barfi", 20.0, 6).getId();
+        Long peda = save("Peda", "Milk", 8.0, 3).getId();
+        sweetStockShards.enable(barfi, 2);
+        sweetCatalog.findById(ladoo).orElseThrow();
+        long version = sweetCatalog.version();
+
+        List<BulkUpdateResultDTO> results = sweetService.bulkUpdate(List.of(
+                new BulkUpdateItemDTO(ladoo, 5, 12.0),
+                new BulkUpdateItemDTO(jalebi, -10, null),
+                new BulkUpdateItemDTO(ladoo, 1, null),
+                new BulkUpdateItemDTO(barfi, 4, 25.0),
+                new BulkUpdateItemDTO(-1L, 3, null),
+                new BulkUpdateItemDTO(jalebi + 1000, null, -2.0),
+                new BulkUpdateItemDTO(ladoo, 2, -3.0),
+                new BulkUpdateItemDTO(peda, null, 9.0)));
+
+        // The bad ladoo line is skipped on its own; the other ladoo lines still apply
+        assertThat(results).extracting(BulkUpdateResultDTO::isUpdated)
+                .containsExactly(true, false, true, true, false, false, false, true);
+        assertThat(results.get(0).getQuantity()).isEqualTo(16);
+        assertThat(results.get(0).getPrice()).isEqualTo(12.0);
+        assertThat(results.get(1).getError()).isEqualTo("Sweet not found or stock would go negative");
+        assertThat(results.get(4).getError()).isEqualTo("Sweet not found or stock would go negative");
+        assertThat(results.get(5).getError()).isEqualTo("Price must not be negative");
+        assertThat(results.get(6).getError()).isEqualTo("Price must not be negative");
+        assertThat(results.get(7).getPrice()).isEqualTo(9.0);
+
+        assertThat(quantities(ladoo, jalebi)).containsExactly(16, 4);
+        assertThat(shardRepository.totalQuantity(barfi)).isEqualTo(10);
+        assertThat(sweetRepository.findById(barfi).orElseThrow().getPrice()).isEqualTo(25.0);
+        assertThat(quantities(peda)).containsExactly(3);
+        // The shard rebalance may publish too, so only require that the catalog moved on
+        assertThat(sweetCatalog.version()).isGreaterThan(version);
+        assertThat(sweetCatalog.findById(ladoo).orElseThrow().getPrice()).isEqualTo(12.0);
+        assertThat(eventRepository.findAll()).filteredOn(event -> event.getType() == InventoryEventType.BULK_UPDATE)
+                .extracting(InventoryEvent::getSweetId).containsExactlyInAnyOrder(ladoo, barfi);   // no event for peda's price
+    }
+
+    private List<Integer> quantities(Long... ids) {
+        List<Integer> quantities = new ArrayList<>();
+        for (Long id : ids) {
+            quantities.add(sweetRepository.findById(id).orElseThrow().getQuantity());
+        }
+        return quantities;
+    }
+
+    // Saved directly, so the catalog is reloaded to include it
+    private Sweet save(String name, String category, double price, int quantity) {
+        Sweet sweet = sweetRepository.save(Sweet.builder()
+                .name(name)
+                .category(category)
+                .price(price)
+                .quantity(quantity)
+                .build());
+        sweetCatalog.invalidate();
+        return sweet;
+    }
+}
@@ -0,0 +1,149 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+import SweetShop.SweetShopSystem.repository.InventoryBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetBatchRepository;
+import SweetShop.SweetShopSystem.repository.SweetRepository;
+import SweetShop.SweetShopSystem.repository.SweetStockShardRepository;
+
+import com.cloudinary.Cloudinary;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Hot SKU shards against H2: concurrent buyers never oversell a plain row or
+ * a sharded one, and released stock finds its way back.
+ */
+@DataJpaTest
+@Import({
+        SweetStockShards.class, SweetBatchRepository.class, SweetCatalog.class,
+        StockLedger.class, InventoryJournal.class, InventoryBatchRepository.class,
+        SweetService.class, SweetNameIndex.class, SweetColumnStore.class, SweetSearchCache.class
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class SweetStockShardsConcurrencyTest {
+
+    private static final int STOCK = 800;
+    private static final int THREADS = 16;
+    private static final int ATTEMPTS_PER_THREAD = 100;
+
+    @Autowired
+    private SweetRepository sweetRepository;
+
+    @Autowired
+    private SweetStockShardRepository shardRepository;
+
+    @Autowired
+    private SweetStockShards sweetStockShards;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private SweetService sweetService;
+
+    @Autowired
+    private SweetCatalog sweetCatalog;
+
+    @MockBean
+    private Cloudinary cloudinary;
+
+    @Test
+    @DisplayName("Sharded purchases never oversell, whatever the shard count")
+    void shardedPurchasesNeverOversell() throws Exception {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+
+        Long plain = newSweet("Jalebi");
+        run(() -> tx.execute(status -> sweetRepository.decrementStock(plain, 1)) == 1);
+        assertThat(sweetRepository.findById(plain).orElseThrow().getQuantity()).isZero();
+
+        for (int shards : new int[]{2, 4, 8, 16}) {
+            Long id = newSweet("Ladoo x" + shards);
+            sweetStockShards.enable(id, shards);
+
+            run(() -> tx.execute(status -> sweetStockShards.purchase(id, 1)) >= 0);
+
+            assertThat(shardRepository.totalQuantity(id)).isZero();
+        }
+    }
+
+    @Test
+    @DisplayName("Released stock reaches the shards and the catalog even without the hot hint")
+    @SuppressWarnings("unchecked")
+    void releaseWithoutHint() {
+        Long id = newSweet("Rasgulla");
+        sweetStockShards.enable(id, 4);
+        sweetCatalog.invalidate();
+        assertThat(sweetCatalog.findById(id).orElseThrow().getQuantity()).isEqualTo(STOCK);
+        ((Map<Long, Integer>) ReflectionTestUtils.getField(sweetStockShards, "hot")).remove(id);
+
+        sweetService.releaseStock(id, 5);
+
+        assertThat(shardRepository.totalQuantity(id)).isEqualTo(STOCK + 5);
+        assertThat(sweetStockShards.isHot(id)).isTrue();
+        assertThat(sweetCatalog.findById(id).orElseThrow().getQuantity()).isEqualTo(STOCK + 5);
+    }
+
+    private Long newSweet(String name) {
+        return sweetRepository.save(Sweet.builder()
+                .name(name)
+                .category("Hot")
+                .price(10.0)
+                .quantity(STOCK)
+                .build()).getId();
+    }
+
+    // Runs the buyers and checks exactly STOCK purchases succeeded, and nothing else failed
+    private void run(Callable<Boolean> purchase) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger();
+        Queue<RuntimeException> failures = new ConcurrentLinkedQueue<>();
+
+        List<Future<?>> buyers = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            buyers.add(pool.submit(() -> {
+                start.await();
+                for (int i = 0; i < ATTEMPTS_PER_THREAD; i++) {
+                    try {
+                        if (purchase.call()) {
+                            sold.incrementAndGet();
+                        }
+                    } catch (RuntimeException e) {
+                        if (!"Not enough stock".equals(e.getMessage())) {
+                            failures.add(e);
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> buyer : buyers) {
+            buyer.get(60, TimeUnit.SECONDS);
+        }
+        pool.shutdown();
+
+        assertThat(failures).as("failures other than running out of stock").isEmpty();
+        assertThat(sold.get()).isEqualTo(STOCK);
+    }
+}
@@ -0,0 +1,76 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.Benchmarks;
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.mockito.Mockito.mock;
+
+/**
+ * Autocomplete lookup latency over 20k terms (10k names, 500 categories),
+ * and the cost of re-freezing the trie after a rename.
+ */
+class SweetSuggesterBenchmark {
+
+    @Test
+    void lookupLatency() {
+        SweetSuggester suggester = new SweetSuggester(mock(SweetCatalog.class));
+        ReflectionTestUtils.setField(suggester, "maxResults", 10);
+
+        Random random = new Random(42);
+        TreeMap<Long, Sweet> byId = new TreeMap<>();
+        for (long id = 1; id <= 10_000; id++) {
+            byId.put(id, Sweet.builder().id(id).name(word(random) + " " + word(random))
+                    .category("Cat " + (id % 500)).price(10.0).quantity(10).build());
+        }
+        List<Sweet> sweets = List.copyOf(byId.values());
+        suggester.onCatalogChanged(new SweetCatalogChangedEvent(
+                new SweetCatalog.Snapshot(1, sweets, byId), true, List.of()));
+
+        String[] prefixes = new String[1_000];
+        for (int i = 0; i < prefixes.length; i++) {
+            String name = sweets.get(random.nextInt(sweets.size())).getName();
+            prefixes[i] = name.substring(0, 1 + random.nextInt(Math.min(4, name.length())));
+        }
+        for (int i = 0; i < 200_000; i++) {
+            suggester.suggest(prefixes[i % prefixes.length], 10);
+        }
+
+        long[] nanos = new long[100_000];
+        for (int i = 0; i < nanos.length; i++) {
+            long began = System.nanoTime();
+            suggester.suggest(prefixes[i % prefixes.length], 10);
+            nanos[i] = System.nanoTime() - began;
+        }
+        Benchmarks.latency("suggest, 20k terms", nanos);
+
+        // Every rename re-freezes the trie on the next lookup
+        long[] rebuilds = new long[50];
+        for (int i = 0; i < rebuilds.length; i++) {
+            Sweet before = sweets.get(i);
+            Sweet after = SweetCatalog.copyOf(before);
+            after.setName(before.getName() + " " + i);
+            suggester.onCatalogChanged(new SweetCatalogChangedEvent(new SweetCatalog.Snapshot(i + 2, sweets, byId),
+                    false, List.of(new SweetCatalogChangedEvent.Change(before.getId(), before, after))));
+            long began = System.nanoTime();
+            suggester.suggest("a", 10);
+            rebuilds[i] = System.nanoTime() - began;
+        }
+        Benchmarks.latency("suggest after a rename (re-freeze)", rebuilds);
+    }
+
+    private static String word(Random random) {
+        char[] chars = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+}
@@ -0,0 +1,126 @@
+package SweetShop.SweetShopSystem.service;
+
+import SweetShop.SweetShopSystem.entity.Sweet;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class SweetSuggesterTest {
+
+    private SweetSuggester suggester;
+
+    @BeforeEach
+    void setUp() {
+        suggester = new SweetSuggester(mock(SweetCatalog.class));
+        ReflectionTestUtils.setField(suggester, "maxResults", 10);
+    }
+
+    @Test
+    @DisplayName("Completions rank by weight, then length, then alphabetically")
+    void trieRanking() {
+        String[] keys = {"kaju katli", "kalakand", "kheer", "ladoo", "laddu", "lassi"};
+        String[] display = {"Kaju Katli", "Kalakand", "Kheer", "Ladoo", "Laddu", "Lassi"};
+        int[] weights = {1, 3, 1, 2, 2, 1};
+        SweetSuggester.Trie trie = new SweetSuggester.Trie(1, keys, display, weights, 10);
+
+        assertThat(trie.complete("k", 10)).containsExactly("Kalakand", "Kheer", "Kaju Katli");
+        assertThat(trie.complete("ka", 1)).containsExactly("Kalakand");
+        assertThat(trie.complete("la", 10)).containsExactly("Laddu", "Ladoo", "Lassi");
+        assertThat(trie.complete("lad", 10)).containsExactly("Laddu", "Ladoo");
+        assertThat(trie.complete("ladoo", 10)).containsExactly("Ladoo");
+        assertThat(trie.complete("x", 10)).isEmpty();
+        assertThat(trie.complete("", 3)).containsExactly("Kalakand", "Laddu", "Ladoo");
+    }
+
+    @Test
+    @DisplayName("Stock changes keep the trie; renames rebuild it")
+    void onlyTermChangesRebuild() {
+        Sweet ladoo = sweet(1L, "Ladoo", "Ladoo", 10);
+        reload(ladoo, sweet(2L, "Kaju Katli", "Barfi", 5));
+        assertThat(suggester.suggest("la", null)).containsExactly("Ladoo");
+        Object frozen = ReflectionTestUtils.getField(suggester, "trie");
+
+        change(ladoo, withQuantity(ladoo, 9));
+        assertThat(suggester.suggest("la", null)).containsExactly("Ladoo");
+        assertThat(ReflectionTestUtils.getField(suggester, "trie")).isSameAs(frozen);
+
+        Sweet renamed = withQuantity(ladoo, 9);
+        renamed.setName("Motichoor Ladoo");
+        change(ladoo, renamed);
+        assertThat(suggester.suggest("mo", null)).containsExactly("Motichoor Ladoo");
+        assertThat(ReflectionTestUtils.getField(suggester, "trie")).isNotSameAs(frozen);
+    }
+
+    @Test
+    @DisplayName("Over 20k terms, completions match a brute-force ranking")
+    void matchesBruteForce() {
+        List<Sweet> sweets = new ArrayList<>();
+        Random random = new Random(42);
+        for (long id = 1; id <= 10_000; id++) {
+            sweets.add(sweet(id, word(random) + " " + word(random), "Cat " + (id % 500), 10));
+        }
+        reload(sweets.toArray(new Sweet[0]));
+
+        Map<String, Integer> counts = new HashMap<>();
+        Map<String, String> display = new HashMap<>();
+        for (Sweet sweet : sweets) {
+            for (String term : new String[]{sweet.getName(), sweet.getCategory()}) {
+                counts.merge(term.toLowerCase(Locale.ROOT), 1, Integer::sum);
+                display.put(term.toLowerCase(Locale.ROOT), term);
+            }
+        }
+        for (int i = 0; i < 200; i++) {
+            String name = sweets.get(random.nextInt(sweets.size())).getName();
+            String prefix = name.substring(0, 1 + random.nextInt(Math.min(4, name.length())));
+            List<String> expected = counts.keySet().stream()
+                    .filter(key -> key.startsWith(prefix))
+                    .sorted(Comparator.<String>comparingInt(key -> -counts.get(key))
+                            .thenComparingInt(String::length)
+                            .thenComparing(Comparator.naturalOrder()))
+                    .limit(10)
+                    .map(display::get)
+                    .toList();
+            assertThat(suggester.suggest(prefix, 10)).as(prefix).containsExactlyElementsOf(expected);
+        }
+        assertThat(suggester.suggest("cat 1", 3)).containsExactly("Cat 1", "Cat 10", "Cat 11");
+    }
+
+    private void reload(Sweet... sweets) {
+        TreeMap<Long, Sweet> byId = new TreeMap<>();
+        for (Sweet sweet : sweets) {
+            byId.put(sweet.getId(), sweet);
+        }
+        SweetCatalog.Snapshot snapshot = new SweetCatalog.Snapshot(1, List.copyOf(byId.values()), byId);
+        suggester.onCatalogChanged(new SweetCatalogChangedEvent(snapshot, true, List.of()));
+    }
+
+    private void change(Sweet before, Sweet after) {
+        suggester.onCatalogChanged(new SweetCatalogChangedEvent(null, false,
+                List.of(new SweetCatalogChangedEvent.Change(before.getId(), before, after))));
+    }
+
+    private static Sweet withQuantity(Sweet sweet, int quantity) {
+        Sweet copy = SweetCatalog.copyOf(sweet);
+        copy.setQuantity(quantity);
+        return copy;
+    }
+
+    private static String word(Random random) {
+        char[] chars = new char[4 + random.nextInt(6)];
+        for (int i = 0; i < chars.length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    private static Sweet sweet(Long id, String name, String category, int quantity) {
+        return Sweet.builder().id(id).name(name).category(category).price(10.0).quantity(quantity).build();
+    }
+}
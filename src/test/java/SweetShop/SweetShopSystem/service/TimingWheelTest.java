@@ -0,0 +1,82 @@
+package SweetShop.SweetShopSystem.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TimingWheelTest {
+
+    private static final long TICK = 10;
+    private static final long START = 1_000_000;
+
+    @Test
+    @DisplayName("A timeout expires on the tick of its deadline, not before")
+    void expiresOnDeadline() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.schedule("a", START + 55);   // rounds up to tick 6
+
+        assertThat(wheel.advance(START + 59)).isEmpty();
+        assertThat(wheel.advance(START + 60)).containsExactly("a");
+        assertThat(wheel.advance(START + 1_000)).isEmpty();
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("A deadline already past fires on the next tick")
+    void pastDeadlineFiresNextTick() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        wheel.advance(START + 100);
+        wheel.schedule("late", START);
+
+        assertThat(wheel.advance(START + 110)).containsExactly("late");
+    }
+
+    @Test
+    @DisplayName("Cancelled timeouts never fire, on any level")
+    void cancelledTimeoutsAreDropped() {
+        TimingWheel<String> wheel = new TimingWheel<>(TICK, START);
+        TimingWheel.Timeout<String> near = wheel.schedule("near", START + 30);
+        TimingWheel.Timeout<String> far = wheel.schedule("far", START + 600 * TICK);
+        wheel.schedule("kept", START + 40);
+
+        near.cancel();
+        far.cancel();
+
+        assertThat(wheel.advance(START + 1_000 * TICK)).containsExactly("kept");
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Deadlines beyond one and two wheel turns cascade down and fire on time")
+    void wrapsAroundLevels() {
+        TimingWheel<Long> wheel = new TimingWheel<>(1, 0);
+        long[] deadlines = {511, 512, 513, 1_000, 262_143, 262_144, 262_145, 300_000, 134_217_728};
+        for (long deadline : deadlines) {
+            wheel.schedule(deadline, deadline);
+        }
+
+        List<Long> fired = new ArrayList<>();
+        for (long deadline : deadlines) {
+            assertThat(wheel.advance(deadline - 1)).isEmpty();
+            List<Long> now = wheel.advance(deadline);
+            assertThat(now).containsExactly(deadline);
+            fired.addAll(now);
+        }
+        assertThat(fired).hasSize(deadlines.length);
+        assertThat(wheel.size()).isZero();
+    }
+
+    @Test
+    @DisplayName("Many timeouts in one slot all fire together")
+    void sameSlot() {
+        TimingWheel<Integer> wheel = new TimingWheel<>(TICK, START);
+        for (int i = 0; i < 1_000; i++) {
+            wheel.schedule(i, START + 5_000 + (i % 10));   // all within tick 500/501
+        }
+        assertThat(wheel.advance(START + 5_010)).hasSize(1_000);
+    }
+}